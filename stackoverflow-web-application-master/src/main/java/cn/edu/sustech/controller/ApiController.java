@@ -9,7 +9,6 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/api")
@@ -17,23 +16,12 @@ public class ApiController {
 
   @Autowired private ApiService apiService;
 
+  // 汇总、排序与截断都在数据库中完成
   @GetMapping("/count")
   public List<Map<String, Object>> getApiCount(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
-      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    Map<String, Integer> result = apiService.getApiCount(from, end);
-    List<Map<String, Object>> resultList =
-        result.entrySet().stream()
-            .sorted(Comparator.comparing(Map.Entry<String, Integer>::getValue).reversed())
-            .map(
-                entry -> {
-                  Map<String, Object> map = new HashMap<>();
-                  map.put("api", entry.getKey());
-                  map.put("count", entry.getValue());
-                  return map;
-                })
-            .collect(Collectors.toList());
-
-    return resultList;
+      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return apiService.getApiCount(from, end, limit);
   }
 }
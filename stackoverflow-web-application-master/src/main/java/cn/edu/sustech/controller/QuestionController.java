@@ -1,8 +1,5 @@
 package cn.edu.sustech.controller;
 
-import cn.edu.sustech.entity.Answer;
-import cn.edu.sustech.entity.Question;
-import cn.edu.sustech.service.AnswerService;
 import cn.edu.sustech.service.QuestionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -18,74 +15,67 @@ import java.util.*;
 public class QuestionController {
 
   @Autowired private QuestionService questionService;
-  @Autowired private AnswerService answerService;
 
   @GetMapping("/no-answer/total")
   public int noAnswerQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    return questionService.noAnswer(from, end).size();
+    return questionService.countNoAnswer(from, end);
   }
 
   @GetMapping("/with-answer/total")
   public int totalAnswerQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    return questionService.withAnswer(from, end).size();
+    return questionService.countWithAnswer(from, end);
   }
 
   @GetMapping("/no-answer/percentage")
   public double noAnswerPercentageQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> noAnswer = questionService.noAnswer(from, end);
-    List<Question> total = questionService.totalQuestion(from, end);
-    return (double) noAnswer.size() / total.size();
+    return (double) questionService.countNoAnswer(from, end)
+        / questionService.countQuestion(from, end);
   }
 
   @GetMapping("/with-answer/percentage")
   public double totalAnswerPercentageQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> noAnswer = questionService.withAnswer(from, end);
-    List<Question> total = questionService.totalQuestion(from, end);
-    return (double) (total.size() - noAnswer.size()) / total.size();
+    int withAnswer = questionService.countWithAnswer(from, end);
+    int total = questionService.countQuestion(from, end);
+    return (double) (total - withAnswer) / total;
   }
 
   @GetMapping("/answer/average")
   public double answerAverageQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    return (double) total.stream().map(Question::getAnswerCount).reduce(0, Integer::sum)
-        / total.size();
+    return (double) questionService.sumAnswerCount(from, end)
+        / questionService.countQuestion(from, end);
   }
 
   @GetMapping("/answer/max")
   public int answerMaxQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    return total.stream().map(Question::getAnswerCount).reduce(0, Integer::max);
+    return questionService.maxAnswerCount(from, end);
   }
 
   @GetMapping("/answer/distribution")
   public List<int[]> answerDistributionQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    Map<Integer, Integer> distribution = new HashMap<Integer, Integer>();
-    total.stream()
-        .forEach(
-            question -> {
-              distribution.merge(question.getAnswerCount(), 1, Integer::sum);
-            });
     List<int[]> result = new ArrayList<>();
-    distribution.entrySet().stream()
-        .sorted((e1, e2) -> e1.getKey().compareTo(e2.getKey()))
+    questionService
+        .answerCountDistribution(from, end)
         .forEach(
-            entry -> {
-              result.add(new int[] {entry.getKey(), entry.getValue()});
+            row -> {
+              result.add(
+                  new int[] {
+                    ((Number) row.get("answer_count")).intValue(),
+                    ((Number) row.get("count")).intValue()
+                  });
             });
     return result;
   }
@@ -94,56 +84,31 @@ public class QuestionController {
   public int withAcceptedAnswerQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> withAcceptedAnswer = questionService.totalQuestion(from, end);
-    Iterator<Question> iterator = withAcceptedAnswer.iterator();
-    while (iterator.hasNext()) {
-      Question question = iterator.next();
-      List<Answer> answers = answerService.acceptedAnswerByQuestionId(question.getQuestionId());
-      if (answers.size() == 0) {
-        iterator.remove();
-      }
-    }
-    return withAcceptedAnswer.size();
+    return questionService.countWithAcceptedAnswer(from, end);
   }
 
   @GetMapping("/with-accepted-answer/percentage")
   public double withAcceptedAnswerPercentageQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> withAnswerList = questionService.withAnswer(from, end);
-    Iterator<Question> iterator = withAnswerList.iterator();
-    while (iterator.hasNext()) {
-      Question question = iterator.next();
-      List<Answer> answers = answerService.acceptedAnswerByQuestionId(question.getQuestionId());
-      if (answers.size() == 0) {
-        iterator.remove();
-      }
-    }
-    return (double) withAnswerList.size() / questionService.totalQuestion(from, end).size();
+    return (double) questionService.countWithAcceptedAnswer(from, end)
+        / questionService.countQuestion(from, end);
   }
 
   @GetMapping("/with-accepted-answer/resolution-distribution")
   public List<long[]> resolutionDistributionQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Answer> acceptedAnswers = answerService.acceptedAnswer(from, end);
-    Map<Long, Integer> distribution = new HashMap<>();
-    acceptedAnswers.stream()
-        .forEach(
-            answer -> {
-                Question question = questionService.questionById(answer.getQuestionId());
-                distribution.merge(
-                    answer.getCreationDate().getTime()
-                        - question.getCreationDate().getTime(),
-                    1,
-                    Integer::sum);
-            });
     List<long[]> result = new ArrayList<>();
-    distribution.entrySet().stream()
-        .sorted((e1, e2) -> e1.getKey().compareTo(e2.getKey()))
+    questionService
+        .resolutionDistribution(from, end)
         .forEach(
-            entry -> {
-              result.add(new long[] {entry.getKey(), entry.getValue()});
+            row -> {
+              result.add(
+                  new long[] {
+                    ((Number) row.get("duration")).longValue(),
+                    ((Number) row.get("count")).longValue()
+                  });
             });
     return result;
   }
@@ -152,65 +117,14 @@ public class QuestionController {
   public int withAcceptedAnswerBetterAnswerQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> withAnswer = questionService.withAnswer(from, end);
-    return withAnswer.stream()
-        .map(
-            question -> {
-              List<Answer> answers = answerService.answerByQuestionID(question.getQuestionId());
-              if (!answers.isEmpty()) {
-                boolean flag = false;
-                int upvotes = 0;
-                int acceptedUpvotes = 0;
-                Iterator<Answer> it = answers.iterator();
-                while (it.hasNext()) {
-                  Answer answer = it.next();
-                  if (answer.isAccepted()) {
-                    flag = true;
-                    acceptedUpvotes = answer.getScore();
-                  } else {
-                    upvotes = Math.max(upvotes, answer.getScore());
-                  }
-                }
-                if (flag && upvotes > acceptedUpvotes) {
-                  return 1;
-                }
-              }
-              return 0;
-            })
-        .reduce(0, Integer::sum);
+    return questionService.countBetterThanAccepted(from, end);
   }
 
   @GetMapping("/with-accepted-answer/better-answer/percentage")
   public double withAcceptedAnswerBetterAnswerPercentageQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> withAnswer = questionService.withAnswer(from, end);
-    int count =
-        withAnswer.stream()
-            .map(
-                question -> {
-                  List<Answer> answers = answerService.answerByQuestionID(question.getQuestionId());
-                  if (!answers.isEmpty()) {
-                    boolean flag = false;
-                    int upvotes = 0;
-                    int acceptedUpvotes = 0;
-                    Iterator<Answer> it = answers.iterator();
-                    while (it.hasNext()) {
-                      Answer answer = it.next();
-                      if (answer.isAccepted()) {
-                        flag = true;
-                        acceptedUpvotes = answer.getScore();
-                      } else {
-                        upvotes = Math.max(upvotes, answer.getScore());
-                      }
-                    }
-                    if (flag && upvotes > acceptedUpvotes) {
-                      return 1;
-                    }
-                  }
-                  return 0;
-                })
-            .reduce(0, Integer::sum);
-    return (double) count / questionService.totalQuestion(from, end).size();
+    return (double) questionService.countBetterThanAccepted(from, end)
+        / questionService.countQuestion(from, end);
   }
 }
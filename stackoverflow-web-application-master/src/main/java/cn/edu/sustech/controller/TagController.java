@@ -1,9 +1,8 @@
 package cn.edu.sustech.controller;
 
-import cn.edu.sustech.entity.Question;
 import cn.edu.sustech.entity.Tag;
-import cn.edu.sustech.entity.TagConnect;
-import cn.edu.sustech.service.QuestionService;
+import cn.edu.sustech.service.TagCombinationCounter;
+import cn.edu.sustech.service.TagCombinationCounter.Metric;
 import cn.edu.sustech.service.TagService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -22,7 +21,6 @@ public class TagController {
   private static final boolean REMOVE_JAVA = true;
 
   @Autowired private TagService tagService;
-  @Autowired private QuestionService questionService;
 
   @GetMapping("/single-tag/all/name")
   public List<Tag> allTagsQuery() {
@@ -43,224 +41,94 @@ public class TagController {
     return tagService.tagCounts();
   }
 
-  private static List<List<String>> getSubListsOfSize(List<String> list, int size) {
-    List<String> nowList = list.stream().distinct().sorted().toList();
-    List<List<String>> result = new ArrayList<>();
-    for (int i = 0; i < (1 << nowList.size()); i++) {
-      if (Integer.bitCount(i) == size) {
-        List<String> subList = new ArrayList<>();
-        for (int j = 0; j < nowList.size(); j++) {
-          if ((i & (1 << j)) != 0) {
-            subList.add(nowList.get(j));
-          }
-        }
-        result.add(subList);
-      }
-    }
-    return result;
-  }
-
   @GetMapping("/group-tag/all/count")
-  public List<Map<String, Object>> allTagGroupCountsQuery(@RequestParam("size") int size) {
-    List<Map<String, Object>> tagGroups = tagService.tagGroups();
-    Map<String, Integer> map = new HashMap<>();
-    tagGroups.forEach(
-        tagGroup -> {
-          List<String> tags = Arrays.asList(((String) tagGroup.get("tags")).split(","));
-          List<List<String>> subListsOfSize = getSubListsOfSize(tags, size);
-          subListsOfSize.forEach(
-              subList -> {
-                String key = subList.stream().sorted().collect(Collectors.joining(","));
-                map.merge(key, 1, Integer::sum);
-              });
-        });
-    List<Map<String, Object>> result = new ArrayList<>();
-    map.entrySet().stream()
-        .sorted((e1, e2) -> -e1.getValue().compareTo(e2.getValue()))
-        .forEach(
-            e -> {
-              result.add(Map.of("tags", e.getKey(), "count", e.getValue()));
-            });
-    return result;
+  public List<Map<String, Object>> allTagGroupCountsQuery(
+      @RequestParam("size") int size,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return toResponse(
+        tagService.tagCombinations(size, Metric.COUNT, limit == null ? 0 : limit), Metric.COUNT);
   }
 
   @GetMapping("/single-tag/count")
   public List<Map<String, Object>> getSingeTagCount(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
-      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    Map<String, Integer> map = new HashMap<>();
-    total.forEach(
-        question -> {
-          List<TagConnect> tags = tagService.tagsByQuestionId(question.getQuestionId());
-          tags.forEach(
-              tag -> {
-                String tagName = tag.getTagName();
-                if (REMOVE_JAVA && tagName.equals("java")) {
-                  return;
-                }
-                map.merge(tagName, 1, Integer::sum);
-              });
-        });
-    List<Map<String, Object>> result = new ArrayList<>();
-    map.entrySet().stream()
-        .sorted((e1, e2) -> -e1.getValue().compareTo(e2.getValue()))
-        .forEach(
-            e -> {
-              result.add(Map.of("tag", e.getKey(), "count", e.getValue()));
-            });
-    return result;
+      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return singleTagStats(from, end, "count", limit);
   }
 
   @GetMapping("/group-tag/count")
   public List<Map<String, Object>> allTagGroupCountsQuery(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end,
-      @RequestParam("size") int size) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    Map<String, Integer> map = new HashMap<>();
-    total.forEach(
-        question -> {
-          List<TagConnect> tags = tagService.tagsByQuestionId(question.getQuestionId());
-          List<String> tagNames =
-              new ArrayList<>(tags.stream().map(TagConnect::getTagName).toList());
-          if (REMOVE_JAVA) {
-            tagNames.remove("java");
-          }
-          List<List<String>> subListsOfSize = getSubListsOfSize(tagNames, size);
-          subListsOfSize.forEach(
-              subList -> {
-                String key = subList.stream().sorted().collect(Collectors.joining(","));
-                map.merge(key, 1, Integer::sum);
-              });
-        });
-    List<Map<String, Object>> result = new ArrayList<>();
-    map.entrySet().stream()
-        .sorted((e1, e2) -> -e1.getValue().compareTo(e2.getValue()))
-        .forEach(
-            e -> {
-              result.add(Map.of("tags", e.getKey(), "count", e.getValue()));
-            });
-    return result;
+      @RequestParam("size") int size,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return groupTagStats(from, end, size, Metric.COUNT, limit);
   }
 
   @GetMapping("/single-tag/upvote")
   public List<Map<String, Object>> getSingeTagUpvote(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
-      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    Map<String, Integer> map = new HashMap<>();
-    total.forEach(
-        question -> {
-          List<TagConnect> tags = tagService.tagsByQuestionId(question.getQuestionId());
-          tags.forEach(
-              tag -> {
-                String tagName = tag.getTagName();
-                if (REMOVE_JAVA && tagName.equals("java")) {
-                  return;
-                }
-                map.merge(tagName, question.getScore(), Integer::sum);
-              });
-        });
-    List<Map<String, Object>> result = new ArrayList<>();
-    map.entrySet().stream()
-        .sorted((e1, e2) -> -e1.getValue().compareTo(e2.getValue()))
-        .forEach(
-            e -> {
-              result.add(Map.of("tag", e.getKey(), "count", e.getValue()));
-            });
-    return result;
+      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return singleTagStats(from, end, "score", limit);
   }
 
   @GetMapping("/group-tag/upvote")
   public List<Map<String, Object>> getGroupTagUpvote(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end,
-      @RequestParam("size") int size) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    Map<String, Integer> map = new HashMap<>();
-    total.forEach(
-        question -> {
-          List<TagConnect> tags = tagService.tagsByQuestionId(question.getQuestionId());
-          List<String> tagNames =
-              new ArrayList<>(tags.stream().map(TagConnect::getTagName).toList());
-          if (REMOVE_JAVA) {
-            tagNames.remove("java");
-          }
-          List<List<String>> subListsOfSize = getSubListsOfSize(tagNames, size);
-          subListsOfSize.forEach(
-              subList -> {
-                String key = subList.stream().sorted().collect(Collectors.joining(","));
-                map.merge(key, question.getScore(), Integer::sum);
-              });
-        });
-    List<Map<String, Object>> result = new ArrayList<>();
-    map.entrySet().stream()
-        .sorted((e1, e2) -> -e1.getValue().compareTo(e2.getValue()))
-        .forEach(
-            e -> {
-              result.add(Map.of("tags", e.getKey(), "count", e.getValue()));
-            });
-    return result;
+      @RequestParam("size") int size,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return groupTagStats(from, end, size, Metric.SCORE, limit);
   }
 
   @GetMapping("/single-tag/view")
   public List<Map<String, Object>> getSingeTagView(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
-      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    Map<String, Integer> map = new HashMap<>();
-    total.forEach(
-        question -> {
-          List<TagConnect> tags = tagService.tagsByQuestionId(question.getQuestionId());
-          tags.forEach(
-              tag -> {
-                String tagName = tag.getTagName();
-                if (REMOVE_JAVA && tagName.equals("java")) {
-                  return;
-                }
-                map.merge(tagName, question.getViewCount(), Integer::sum);
-              });
-        });
-    List<Map<String, Object>> result = new ArrayList<>();
-    map.entrySet().stream()
-        .sorted((e1, e2) -> -e1.getValue().compareTo(e2.getValue()))
-        .forEach(
-            e -> {
-              result.add(Map.of("tag", e.getKey(), "count", e.getValue()));
-            });
-    return result;
+      @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return singleTagStats(from, end, "views", limit);
   }
 
   @GetMapping("/group-tag/view")
   public List<Map<String, Object>> getGroupTagView(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end,
-      @RequestParam("size") int size) {
-    List<Question> total = questionService.totalQuestion(from, end);
-    Map<String, Integer> map = new HashMap<>();
-    total.forEach(
-        question -> {
-          List<TagConnect> tags = tagService.tagsByQuestionId(question.getQuestionId());
-          List<String> tagNames =
-              new ArrayList<>(tags.stream().map(TagConnect::getTagName).toList());
-          if (REMOVE_JAVA) {
-            tagNames.remove("java");
-          }
-          List<List<String>> subListsOfSize = getSubListsOfSize(tagNames, size);
-          subListsOfSize.forEach(
-              subList -> {
-                String key = subList.stream().sorted().collect(Collectors.joining(","));
-                map.merge(key, question.getViewCount(), Integer::sum);
-              });
-        });
+      @RequestParam("size") int size,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return groupTagStats(from, end, size, Metric.VIEWS, limit);
+  }
+
+  // 聚合与排序都在数据库中完成，每个请求只有一次查询
+  private List<Map<String, Object>> singleTagStats(
+      Date from, Date end, String metric, Integer limit) {
     List<Map<String, Object>> result = new ArrayList<>();
-    map.entrySet().stream()
-        .sorted((e1, e2) -> -e1.getValue().compareTo(e2.getValue()))
+    tagService
+        .tagStats(from, end, REMOVE_JAVA ? "java" : null, metric, limit)
         .forEach(
-            e -> {
-              result.add(Map.of("tags", e.getKey(), "count", e.getValue()));
+            row -> {
+              result.add(Map.of("tag", row.get("tag"), "count", row.get(metric)));
             });
     return result;
   }
+
+  // 问题数、分数和与浏览数在同一遍计数中得到，metric 只决定排序与返回哪一项
+  private List<Map<String, Object>> groupTagStats(
+      Date from, Date end, int size, Metric metric, Integer limit) {
+    return toResponse(
+        tagService.tagCombinations(
+            from, end, REMOVE_JAVA ? "java" : null, size, metric, limit == null ? 0 : limit),
+        metric);
+  }
+
+  private static List<Map<String, Object>> toResponse(
+      List<TagCombinationCounter.Combination> combinations, Metric metric) {
+    List<Map<String, Object>> result = new ArrayList<>(combinations.size());
+    combinations.forEach(
+        combination -> {
+          result.add(Map.of("tags", combination.tags(), "count", combination.value(metric)));
+        });
+    return result;
+  }
 }
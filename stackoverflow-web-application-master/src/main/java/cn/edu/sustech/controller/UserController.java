@@ -1,8 +1,8 @@
 package cn.edu.sustech.controller;
 
-import cn.edu.sustech.entity.Answer;
-import cn.edu.sustech.entity.Comment;
-import cn.edu.sustech.entity.Question;
+import cn.edu.sustech.entity.AnswerSummary;
+import cn.edu.sustech.entity.CommentSummary;
+import cn.edu.sustech.entity.QuestionSummary;
 import cn.edu.sustech.service.AnswerService;
 import cn.edu.sustech.service.CommentService;
 import cn.edu.sustech.service.QuestionService;
@@ -29,7 +29,7 @@ public class UserController {
   public List<int[]> getPostAnswerDistribution(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Answer> answers = answerService.answerByDate(from, end);
+    List<AnswerSummary> answers = answerService.answerSummaries(from, end);
     Map<Integer, HashSet<Integer>> map = new HashMap<>();
     answers.forEach(
         answer -> {
@@ -52,21 +52,17 @@ public class UserController {
   public List<int[]> getPostCommentDistribution(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Comment> comments = commentService.commentByDate(from, end);
+    List<CommentSummary> comments = commentService.commentSummaries(from, end);
     Map<Integer, HashSet<Integer>> map = new HashMap<>();
     comments.forEach(
         comment -> {
-          List<Answer> answers = answerService.answerByAnswerId(comment.getPostId());
-          if (answers != null && !answers.isEmpty()) {
-            answers.forEach(
-                answer -> {
-                  map.merge(
-                      answer.getQuestionId(),
-                      new HashSet<>(Collections.singletonList(answer.getAccountId())),
-                      (oldValue, newValue) -> {
-                        oldValue.addAll(newValue);
-                        return oldValue;
-                      });
+          if (comment.getAnswerQuestionId() != null) {
+            map.merge(
+                comment.getAnswerQuestionId(),
+                new HashSet<>(Collections.singletonList(comment.getAnswerAccountId())),
+                (oldValue, newValue) -> {
+                  oldValue.addAll(newValue);
+                  return oldValue;
                 });
           } else {
             map.merge(
@@ -89,7 +85,7 @@ public class UserController {
   public List<int[]> getParticipationDistribution(
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
-    List<Answer> answers = answerService.answerByDate(from, end);
+    List<AnswerSummary> answers = answerService.answerSummaries(from, end);
     Map<Integer, HashSet<Integer>> map = new HashMap<>();
     answers.forEach(
         answer -> {
@@ -101,20 +97,16 @@ public class UserController {
                 return oldValue;
               });
         });
-    List<Comment> comments = commentService.commentByDate(from, end);
+    List<CommentSummary> comments = commentService.commentSummaries(from, end);
     comments.forEach(
         comment -> {
-          List<Answer> answers2 = answerService.answerByAnswerId(comment.getPostId());
-          if (answers2 != null && !answers2.isEmpty()) {
-            answers2.forEach(
-                answer -> {
-                  map.merge(
-                      answer.getQuestionId(),
-                      new HashSet<>(Collections.singletonList(answer.getAccountId())),
-                      (oldValue, newValue) -> {
-                        oldValue.addAll(newValue);
-                        return oldValue;
-                      });
+          if (comment.getAnswerQuestionId() != null) {
+            map.merge(
+                comment.getAnswerQuestionId(),
+                new HashSet<>(Collections.singletonList(comment.getAnswerAccountId())),
+                (oldValue, newValue) -> {
+                  oldValue.addAll(newValue);
+                  return oldValue;
                 });
           } else {
             map.merge(
@@ -138,17 +130,17 @@ public class UserController {
       @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date from,
       @RequestParam("end") @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") Date end) {
     Map<Integer, Integer> map = new HashMap<>();
-    List<Question> questions = questionService.totalQuestion(from, end);
+    List<QuestionSummary> questions = questionService.questionSummaries(from, end);
     questions.forEach(
         question -> {
           map.merge(question.getAccountId(), 1, Integer::sum);
         });
-    List<Answer> answers = answerService.answerByDate(from, end);
+    List<AnswerSummary> answers = answerService.answerSummaries(from, end);
     answers.forEach(
         answer -> {
           map.merge(answer.getAccountId(), 1, Integer::sum);
         });
-    List<Comment> comments = commentService.commentByDate(from, end);
+    List<CommentSummary> comments = commentService.commentSummaries(from, end);
     comments.forEach(
         comment -> {
           map.merge(comment.getAccountId(), 1, Integer::sum);
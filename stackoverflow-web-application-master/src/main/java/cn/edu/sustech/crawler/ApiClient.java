@@ -1,6 +1,6 @@
 package cn.edu.sustech.crawler;
 
-import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
 import com.alibaba.fastjson.JSONObject;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -9,13 +9,43 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class ApiClient {
     private static final Logger logger = LoggerFactory.getLogger(ApiClient.class);
+    // throttle_violation 的错误信息形如 "... more requests available in 12 seconds"
+    private static final Pattern AVAILABLE_IN = Pattern.compile("available in (\\d+) seconds");
     private final OkHttpClient client;
+    private final ApiRateLimiter rateLimiter;
+    // 不为 null 时记录每个成功的原始响应；回放模式下从中读取响应而不访问网络
+    private final ResponseArchive archive;
+    // API 根地址，基准测试时指向本地的模拟服务
+    private final String baseUrl;
+    private final CrawlerMetrics metrics = CrawlerMetrics.shared();
 
     public ApiClient() {
+        this(ApiRateLimiter.shared());
+    }
+
+    public ApiClient(ApiRateLimiter rateLimiter) {
+        this(rateLimiter, null);
+    }
+
+    public ApiClient(ApiRateLimiter rateLimiter, ResponseArchive archive) {
+        this(rateLimiter, archive, ApiConfig.BASE_URL);
+    }
+
+    public ApiClient(ApiRateLimiter rateLimiter, ResponseArchive archive, String baseUrl) {
+        this.rateLimiter = rateLimiter;
+        this.archive = archive;
+        this.baseUrl = baseUrl;
         this.client = new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS)
@@ -23,9 +53,26 @@ public class ApiClient {
                 .build();
     }
 
-    public JSONObject executeRequest(String endpoint, String params) {
+    // 请求参数中取决于当前时间的值经由此处取得：有归档时固定在归档中，回放时得到与记录时相同的值
+    public long pin(String name, LongSupplier value) {
+        return archive == null ? value.getAsLong() : archive.pin(name, value);
+    }
+
+    // 开始新的一次采集时丢弃上一次的固定值
+    public void unpin(String name) {
+        if (archive != null) {
+            archive.unpin(name);
+        }
+    }
+
+    // 发出请求并流式解析响应，items 逐条交给 itemConsumer；失败重试时已交付的 item 可能被再次交付
+    public ApiResponseMeta streamRequest(String endpoint, String params, Consumer<JSONObject> itemConsumer) {
+        if (archive != null && archive.isReplay()) {
+            return replay(endpoint, params, itemConsumer);
+        }
         String url = String.format("%s/%s?%s&site=%s&key=%s",
-                ApiConfig.BASE_URL, endpoint, params, ApiConfig.SITE, ApiConfig.API_KEY);
+                baseUrl, endpoint, params, ApiConfig.SITE, ApiConfig.API_KEY);
+        String method = ApiRateLimiter.methodOf(endpoint);
 
         Request request = new Request.Builder()
                 .url(url)
@@ -33,31 +80,50 @@ public class ApiClient {
                 .build();
 
         for (int attempt = 1; attempt <= ApiConfig.MAX_RETRY_ATTEMPTS; attempt++) {
+            rateLimiter.acquire(method);
             Response response = null;
+            long started = System.nanoTime();
             try {
                 response = client.newCall(request).execute();
+                assert response.body() != null;
+                InputStream body = metrics.countBytes(method, response.body().byteStream());
+                ResponseArchive.Recording recording = archive == null ? null : ResponseArchive.record(body);
+                ApiResponseMeta meta = decode(recording == null ? body : recording, itemConsumer);
+                metrics.apiRequest(method, System.nanoTime() - started);
+
+                // Stack Exchange 的错误响应同样带有 error_id / error_name
+                if (meta != null && meta.isError()) {
+                    handleApiError(meta);
+                }
                 if (!response.isSuccessful()) {
                     throw new ApiException("API request failed with code: " + response.code());
                 }
-
-                assert response.body() != null;
-                String responseBody = response.body().string();
-                JSONObject data = JSON.parseObject(responseBody);
-
-                if (data == null) {
+                if (meta == null) {
                     throw new ApiException("Failed to parse JSON response");
                 }
-
-                // Check for API-specific error responses
-                if (data.containsKey("error")) {
-                    throw new ApiException("API error: " + data.getJSONObject("error").getString("message"));
+                rateLimiter.onResponse(method, meta.getBackoff(), meta.getQuotaRemaining(), meta.getQuotaMax());
+                // filter=total 的响应只有 total 字段，没有配额信息
+                if (meta.getQuotaRemaining() != null) {
+                    metrics.quotaRemaining(meta.getQuotaRemaining());
+                }
+                if (recording != null) {
+                    archive.append(ResponseArchive.keyOf(endpoint, params), recording.finish());
                 }
-                return data;
+                return meta;
 
+            } catch (ThrottledException e) {
+                // 等待时间已交给限流器，下一次 acquire 会精确等待，不再走指数退避
+                if (attempt == ApiConfig.MAX_RETRY_ATTEMPTS) {
+                    throw new ApiException("Failed after " + attempt + " attempts", e);
+                }
+                metrics.apiRetry(method, "throttled");
+                logger.warn("Request throttled (attempt {}/{}), retrying after API-specified wait",
+                        attempt, ApiConfig.MAX_RETRY_ATTEMPTS);
             } catch (IOException | ApiException e) {
                 if (attempt == ApiConfig.MAX_RETRY_ATTEMPTS) {
                     throw new ApiException("Failed after " + attempt + " attempts", e);
                 }
+                metrics.apiRetry(method, "error");
                 logger.warn("Request failed (attempt {}/{}), retrying...", attempt, ApiConfig.MAX_RETRY_ATTEMPTS);
                 try {
                     // 指数退避算法，重试延迟时间逐渐增加，最大 64 秒
@@ -78,4 +144,51 @@ public class ApiClient {
         }
         throw new ApiException("Failed to execute request after all retries");
     }
+
+    // 只需要 total 等元数据的请求（如 filter=total）
+    public ApiResponseMeta executeRequest(String endpoint, String params) {
+        return streamRequest(endpoint, params, item -> { });
+    }
+
+    // 从归档读取响应，归档中缺少的请求直接失败
+    private ApiResponseMeta replay(String endpoint, String params, Consumer<JSONObject> itemConsumer) {
+        String key = ResponseArchive.keyOf(endpoint, params);
+        try (InputStream in = archive.open(key)) {
+            if (in == null) {
+                throw new ApiException("No archived response for " + key);
+            }
+            ApiResponseMeta meta = decode(in, itemConsumer);
+            if (meta == null) {
+                throw new ApiException("Failed to parse archived response for " + key);
+            }
+            return meta;
+        } catch (IOException e) {
+            throw new ApiException("Failed to read archived response for " + key, e);
+        }
+    }
+
+    private static ApiResponseMeta decode(InputStream in, Consumer<JSONObject> itemConsumer) {
+        try {
+            return ApiResponseMeta.decode(new InputStreamReader(in, StandardCharsets.UTF_8), itemConsumer);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    private void handleApiError(ApiResponseMeta meta) {
+        String message = meta.getErrorMessage();
+        if ("throttle_violation".equals(meta.getErrorName())) {
+            Matcher matcher = AVAILABLE_IN.matcher(message == null ? "" : message);
+            rateLimiter.pause(matcher.find() ? Long.parseLong(matcher.group(1)) : 60);
+            throw new ThrottledException(message);
+        }
+        throw new ApiException("API error " + meta.getErrorId() + " (" + meta.getErrorName() + "): " + message);
+    }
+
+    // 被限流的请求，重试前的等待由限流器负责
+    private static class ThrottledException extends ApiException {
+        ThrottledException(String message) {
+            super(message);
+        }
+    }
 }
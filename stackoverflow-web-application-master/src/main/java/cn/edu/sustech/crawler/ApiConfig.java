@@ -22,4 +22,39 @@ public class ApiConfig {
     public static final String USER_AGENT = properties.getProperty("user_agent");
     public static final int MAX_RETRY_ATTEMPTS = Integer.parseInt(properties.getProperty("max_retry_attempts", "10"));
     public static final int RETRY_DELAY_MS = Integer.parseInt(properties.getProperty("retry_delay_ms", "1000"));
+    // 限流：稳定请求速率（Stack Exchange 对单 IP 超过 30 次/秒会返回 throttle_violation）
+    public static final double MAX_REQUESTS_PER_SECOND = Double.parseDouble(properties.getProperty("max_requests_per_second", "20"));
+    public static final int REQUEST_BURST = Integer.parseInt(properties.getProperty("request_burst", "10"));
+    // 保留的每日配额，剩余配额低于该值时停止请求
+    public static final int QUOTA_RESERVE = Integer.parseInt(properties.getProperty("quota_reserve", "50"));
+    // 单次等待超过该值（例如配额耗尽后的长时间封禁）时直接失败，而不是一直休眠
+    public static final long MAX_BACKOFF_WAIT_MS = Long.parseLong(properties.getProperty("max_backoff_wait_ms", "600000"));
+    // 每个批次抓取后立即写库（false 时采集结束后统一写库）
+    public static final boolean STREAM_TO_DATABASE = Boolean.parseBoolean(properties.getProperty("stream_to_database", "true"));
+    // 使用 COPY + 暂存表合并的批量加载写库；暂存表是每个连接的临时表，写库线程可并行加载
+    public static final boolean BULK_LOAD = Boolean.parseBoolean(properties.getProperty("bulk_load", "false"));
+    // API 抽取实现：fast（单遍扫描，与 corenlp 结果一致）、corenlp（StanfordCoreNLP 分词）或 code（区分代码块并规范化 API 名）。
+    // code 产生的 API 名与另外两种不同，已有的 api 表和连接表没有迁移，切换前需要清空这些表并重新采集
+    public static final String API_EXTRACTOR = properties.getProperty("api_extractor", "fast");
+    // owner、tag、api 维度缓存每类最多保留的条数
+    public static final int DIMENSION_CACHE_SIZE = Integer.parseInt(properties.getProperty("dimension_cache_size", "200000"));
+    // API 抽取线程数，默认使用全部核
+    public static final int EXTRACTION_THREADS = Integer.parseInt(properties.getProperty("extraction_threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+    // 进度日志累计多少条记录后压缩为快照
+    public static final int PROGRESS_COMPACT_RECORDS = Integer.parseInt(properties.getProperty("progress_compact_records", "200000"));
+    // 响应归档单个分段文件的大小上限（字节）
+    public static final long ARCHIVE_SEGMENT_BYTES = Long.parseLong(properties.getProperty("archive_segment_bytes", "268435456"));
+    // 采集指标按 Prometheus 文本格式写入的文件，留空则只打印日志
+    public static final String METRICS_FILE = properties.getProperty("metrics_file", "crawler-metrics.prom");
+    // 写指标文件并打印各阶段速率的间隔（秒），0 表示只在运行结束时输出
+    public static final int METRICS_REPORT_INTERVAL_SECONDS = Integer.parseInt(properties.getProperty("metrics_report_interval_seconds", "30"));
+    // 分片采集的标签（逗号分隔），每个标签单独规划窗口
+    public static final String[] CRAWL_TAGS = properties.getProperty("crawl_tags", "java").split("\\s*,\\s*");
+    // 分片采集的起始 creation_date（Unix 秒），默认为 Stack Overflow 上线当天
+    public static final long CRAWL_FROM_DATE = Long.parseLong(properties.getProperty("crawl_from_date", "1217462400"));
+    // 单个窗口最多的页数；匿名访问超过 25 页的请求会被 API 拒绝
+    public static final int MAX_WINDOW_PAGES = Integer.parseInt(properties.getProperty("max_window_pages", "25"));
+    // 抓取流水线的并发线程数
+    public static final int CRAWLER_THREADS = Integer.parseInt(properties.getProperty("crawler_threads", "4"));
 }
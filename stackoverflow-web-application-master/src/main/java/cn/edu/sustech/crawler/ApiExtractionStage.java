@@ -0,0 +1,209 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * API 抽取阶段。
+ * 帖子正文交给抽取线程池分词，得到的 (帖子ID, API名, 次数) 由单独的写库线程攒批写入
+ * api 表（跳过 DimensionCache 中已有的名字）和按 api_id 关联的 connection_*_and_api 表；写入每批结果前先删除这些帖子的旧关联行，没有 API 的帖子同样会清空旧行。
+ * 这样写帖子的事务不再等待 CPU 密集的分词，分词也能用满所有核。
+ * 在途帖子数有上限，超过时 submit 阻塞；drain() 等待所有已提交的帖子写库完成。
+ */
+class ApiExtractionStage implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ApiExtractionStage.class);
+    private static final int MAX_IN_FLIGHT = 10000;
+    private static final int WRITE_BATCH = 1000;
+
+    enum PostType {
+        QUESTION("connection_question_and_api", "question_id"),
+        ANSWER("connection_answer_and_api", "answer_id"),
+        COMMENT("connection_comment_and_api", "comment_id");
+
+        private final String table;
+        private final String idColumn;
+
+        PostType(String table, String idColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+        }
+    }
+
+    private record Extracted(PostType type, int postId, Map<String, Integer> apiCount) {
+    }
+
+    private final DataSource dataSource;
+    private final JavaApiExtractor apiExtractor;
+    private final DimensionCache dimensions;
+    private final CrawlerMetrics metrics = CrawlerMetrics.shared();
+    private final ExecutorService extractors;
+    private final BlockingQueue<Extracted> results = new LinkedBlockingQueue<>();
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile Exception failure;
+
+    ApiExtractionStage(DataSource dataSource, JavaApiExtractor apiExtractor, DimensionCache dimensions, int threads) {
+        this.dataSource = dataSource;
+        this.apiExtractor = apiExtractor;
+        this.dimensions = dimensions;
+        this.extractors = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "api-extractor-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.writer = new Thread(this::writeLoop, "api-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    void submit(PostType type, int postId, String body) throws SQLException {
+        checkFailure();
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while submitting post " + postId, e);
+        }
+        extractors.execute(() -> {
+            try {
+                long started = System.nanoTime();
+                Map<String, Integer> apiCount = apiExtractor.getAllJavaAPI(body);
+                metrics.extraction(System.nanoTime() - started);
+                results.add(new Extracted(type, postId, apiCount));
+            } catch (RuntimeException e) {
+                fail(e);
+                inFlight.release();
+            }
+        });
+    }
+
+    // 等待所有已提交的帖子抽取并写库完成
+    void drain() throws SQLException {
+        try {
+            inFlight.acquire(MAX_IN_FLIGHT);
+            inFlight.release(MAX_IN_FLIGHT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for API extraction", e);
+        }
+        checkFailure();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        extractors.shutdownNow();
+        writer.interrupt();
+    }
+
+    private void writeLoop() {
+        List<Extracted> batch = new ArrayList<>(WRITE_BATCH);
+        while (!closed) {
+            try {
+                batch.add(results.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            results.drainTo(batch, WRITE_BATCH - 1);
+            try {
+                if (failure == null) {
+                    write(batch);
+                }
+            } catch (SQLException | RuntimeException e) {
+                fail(e);
+            } finally {
+                inFlight.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Extracted> batch) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long started = System.nanoTime();
+                int rows = 0;
+                // 新的 api 名按顺序写入，与其他写库线程的加锁顺序一致
+                TreeSet<String> apiNames = new TreeSet<>();
+                EnumMap<PostType, List<Extracted>> byType = new EnumMap<>(PostType.class);
+                for (Extracted extracted : batch) {
+                    apiNames.addAll(extracted.apiCount().keySet());
+                    byType.computeIfAbsent(extracted.type(), k -> new ArrayList<>()).add(extracted);
+                }
+                Map<String, Integer> apiIds = new HashMap<>();
+                Map<String, Integer> newApiIds = dimensions.resolve(conn, DimensionCache.Dimension.API, apiNames,
+                        apiIds);
+                for (Map.Entry<PostType, List<Extracted>> entry : byType.entrySet()) {
+                    rows += writeConnections(conn, entry.getKey(), entry.getValue(), apiIds);
+                }
+                long executed = System.nanoTime();
+                conn.commit();
+                metrics.dbBatch("api", rows, executed - started, System.nanoTime() - executed);
+                dimensions.idsWritten(DimensionCache.Dimension.API, newApiIds);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // 返回写入的关联行数
+    private static int writeConnections(Connection conn, PostType type, List<Extracted> extracted,
+                                        Map<String, Integer> apiIds) throws SQLException {
+        // 同一帖子在一批中出现多次时只保留最后一次的结果
+        Map<Integer, Extracted> posts = new LinkedHashMap<>();
+        for (Extracted post : extracted) {
+            posts.put(post.postId(), post);
+        }
+        Integer[] ids = posts.keySet().toArray(new Integer[0]);
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM " + type.table + " WHERE " + type.idColumn + " = ANY(?)")) {
+            stmt.setArray(1, conn.createArrayOf("integer", ids));
+            stmt.executeUpdate();
+        }
+        int rows = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO " + type.table + " (" + type.idColumn + ", api_id, count) VALUES (?,?,?)")) {
+            for (Extracted post : posts.values()) {
+                for (Map.Entry<String, Integer> api : post.apiCount().entrySet()) {
+                    stmt.setInt(1, post.postId());
+                    stmt.setInt(2, apiIds.get(api.getKey()));
+                    stmt.setInt(3, api.getValue());
+                    stmt.addBatch();
+                    rows++;
+                }
+            }
+            stmt.executeBatch();
+        }
+        return rows;
+    }
+
+    private void fail(Exception e) {
+        if (failure == null) {
+            failure = e;
+            logger.error("API extraction stage failed", e);
+        }
+    }
+
+    private void checkFailure() throws SQLException {
+        Exception e = failure;
+        if (e != null) {
+            throw e instanceof SQLException sqlException ? sqlException
+                    : new SQLException("API extraction failed", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有 ApiClient 共享的限流器：
+ * 令牌桶按固定速率补充，桶容量随响应中的 quota_remaining 动态收缩；
+ * 响应携带 backoff 时，对应方法在窗口结束前不再发出请求；
+ * 收到 throttle_violation 时所有方法一起暂停。
+ */
+public class ApiRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(ApiRateLimiter.class);
+    private static final ApiRateLimiter SHARED = new ApiRateLimiter(
+            ApiConfig.MAX_REQUESTS_PER_SECOND, ApiConfig.REQUEST_BURST, ApiConfig.QUOTA_RESERVE);
+
+    private final double refillPerSecond;
+    private final int burst;
+    private final int quotaReserve;
+
+    private double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    // 未知时为 -1
+    private int quotaRemaining = -1;
+    private int quotaMax = -1;
+
+    private final Map<String, Long> backoffUntil = new HashMap<>();
+    private long pausedUntil = 0;
+
+    public ApiRateLimiter(double refillPerSecond, int burst, int quotaReserve) {
+        this.refillPerSecond = refillPerSecond;
+        this.burst = burst;
+        this.quotaReserve = quotaReserve;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public static ApiRateLimiter shared() {
+        return SHARED;
+    }
+
+    // 把 questions/1;2;3/answers 之类的端点归一为 questions/{ids}/answers，backoff 按方法生效
+    public static String methodOf(String endpoint) {
+        return endpoint.replaceAll("(^|/)[0-9;]+(?=/|$)", "$1{ids}");
+    }
+
+    // 阻塞直到可以对该方法发出一次请求
+    public void acquire(String method) {
+        while (true) {
+            long waitMs;
+            synchronized (this) {
+                if (quotaRemaining >= 0 && quotaRemaining <= quotaReserve) {
+                    throw new ApiException("API quota exhausted: " + quotaRemaining + "/" + quotaMax + " remaining");
+                }
+                refill();
+                long now = System.currentTimeMillis();
+                waitMs = Math.max(pausedUntil - now, backoffUntil.getOrDefault(method, 0L) - now);
+                if (waitMs <= 0) {
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        if (quotaRemaining > 0) {
+                            quotaRemaining--;
+                        }
+                        return;
+                    }
+                    waitMs = (long) Math.ceil((1 - tokens) * 1000 / refillPerSecond);
+                }
+            }
+            if (waitMs > ApiConfig.MAX_BACKOFF_WAIT_MS) {
+                throw new ApiException("API asked to wait " + waitMs + " ms for " + method + ", giving up");
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("Interrupted while waiting for rate limiter", e);
+            }
+        }
+    }
+
+    // 根据响应中的 backoff、quota_remaining、quota_max 更新限流状态
+    public synchronized void onResponse(String method, Integer backoff, Integer quotaRemaining, Integer quotaMax) {
+        if (backoff != null && backoff > 0) {
+            long until = System.currentTimeMillis() + backoff * 1000L;
+            backoffUntil.merge(method, until, Math::max);
+            logger.info("API requested backoff of {}s for {}", backoff, method);
+        }
+        if (quotaMax != null) {
+            this.quotaMax = quotaMax;
+        }
+        if (quotaRemaining != null) {
+            this.quotaRemaining = quotaRemaining;
+            // 剩余配额不足一整桶时收缩桶容量，避免突发请求把配额打穿
+            capacity = Math.max(1, Math.min(burst, quotaRemaining - quotaReserve));
+            tokens = Math.min(tokens, capacity);
+        }
+    }
+
+    // throttle_violation：整个 IP 被限流，所有方法一起暂停
+    public synchronized void pause(long seconds) {
+        pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + seconds * 1000L);
+        logger.warn("API throttle violation, pausing all requests for {}s", seconds);
+    }
+
+    public synchronized int getQuotaRemaining() {
+        return quotaRemaining;
+    }
+
+    public synchronized int getQuotaMax() {
+        return quotaMax;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1e9 * refillPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,93 @@
+package cn.edu.sustech.crawler;
+
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.util.TypeUtils;
+
+import java.io.Reader;
+import java.util.function.Consumer;
+
+// 响应包装对象中除 items 以外的字段，items 在解析过程中逐条交给调用方
+public class ApiResponseMeta {
+    private boolean hasMore;
+    private Integer total;
+    private Integer backoff;
+    private Integer quotaRemaining;
+    private Integer quotaMax;
+    private Integer errorId;
+    private String errorName;
+    private String errorMessage;
+    private int itemCount;
+
+    // 从字符流中增量解析响应，每解析出一个 item 就立即交给 itemConsumer，不保留整棵 JSON 树
+    public static ApiResponseMeta decode(Reader body, Consumer<JSONObject> itemConsumer) {
+        ApiResponseMeta meta = new ApiResponseMeta();
+        try (JSONReader reader = new JSONReader(body)) {
+            reader.startObject();
+            while (reader.hasNext()) {
+                String key = reader.readString();
+                switch (key) {
+                    case "items" -> {
+                        reader.startArray();
+                        while (reader.hasNext()) {
+                            itemConsumer.accept(reader.readObject(JSONObject.class));
+                            meta.itemCount++;
+                        }
+                        reader.endArray();
+                    }
+                    case "has_more" -> meta.hasMore = Boolean.TRUE.equals(TypeUtils.castToBoolean(reader.readObject()));
+                    case "total" -> meta.total = reader.readInteger();
+                    case "backoff" -> meta.backoff = reader.readInteger();
+                    case "quota_remaining" -> meta.quotaRemaining = reader.readInteger();
+                    case "quota_max" -> meta.quotaMax = reader.readInteger();
+                    case "error_id" -> meta.errorId = reader.readInteger();
+                    case "error_name" -> meta.errorName = reader.readString();
+                    case "error_message" -> meta.errorMessage = reader.readString();
+                    default -> reader.readObject();
+                }
+            }
+            reader.endObject();
+        }
+        return meta;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public Integer getBackoff() {
+        return backoff;
+    }
+
+    public Integer getQuotaRemaining() {
+        return quotaRemaining;
+    }
+
+    public Integer getQuotaMax() {
+        return quotaMax;
+    }
+
+    public boolean isError() {
+        return errorId != null;
+    }
+
+    public Integer getErrorId() {
+        return errorId;
+    }
+
+    public String getErrorName() {
+        return errorName;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+}
@@ -0,0 +1,243 @@
+package cn.edu.sustech.crawler;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * 单个写库线程使用的批量写入器。
+ * 帖子正文在所在批次提交之后才交给 ApiExtractionStage 异步抽取 API，API 关联行由该阶段写入；
+ * 回滚的批次不会产生关联行，提交前也不会因抽取阶段的在途上限而阻塞在打开的事务里。
+ * 连接、预编译语句和批处理计数都归该写入器独占，多个写入器可以在不同线程上并行使用；
+ * 用完后 close() 关闭语句并把连接还给连接池。
+ * owner、tag 这类多个写入器可能同时写到的行先在内存中去重，再跳过 DimensionCache 中已写入且没有变化的行，
+ * 提交前按主键顺序写入，使并发事务以相同的顺序加锁，避免死锁。
+ * 问题与标签的关联行在提交前把标签名换成 tag_id 后再写入。
+ */
+class BatchWriter implements AutoCloseable {
+    private final Connection conn;
+    private final ApiExtractionStage apiExtraction;
+    private final DimensionCache dimensions;
+    private final CrawlerMetrics metrics = CrawlerMetrics.shared();
+    private final int batchSize;
+
+    private final PreparedStatement questionStmt;
+    private final PreparedStatement answerStmt;
+    private final PreparedStatement commentStmt;
+    private final PreparedStatement ownerStmt;
+    private final PreparedStatement tagQuestionStmt;
+
+    // 当前批次中待写入的共享维度行
+    private final TreeMap<Integer, User> pendingOwners = new TreeMap<>();
+    private final TreeSet<String> pendingTags = new TreeSet<>();
+    // 当前批次中待写入的 (标签名, 问题ID) 关联
+    private final List<TagLink> pendingTagLinks = new ArrayList<>();
+    // 当前批次中待抽取 API 的帖子，提交后再交给抽取阶段
+    private final List<PendingPost> pendingPosts = new ArrayList<>();
+    private int batchCount;
+
+    private record TagLink(String tag, int questionId) {
+    }
+
+    private record PendingPost(ApiExtractionStage.PostType type, int postId, String body) {
+    }
+
+    BatchWriter(Connection conn, ApiExtractionStage apiExtraction, DimensionCache dimensions, int batchSize)
+            throws SQLException {
+        this.conn = conn;
+        this.apiExtraction = apiExtraction;
+        this.dimensions = dimensions;
+        this.batchSize = batchSize;
+        conn.setAutoCommit(false);
+        questionStmt = conn.prepareStatement(DatabaseService.UPSERT_QUESTION);
+        answerStmt = conn.prepareStatement(DatabaseService.UPSERT_ANSWER);
+        commentStmt = conn.prepareStatement(DatabaseService.UPSERT_COMMENT);
+        ownerStmt = conn.prepareStatement(DatabaseService.UPSERT_OWNER);
+        tagQuestionStmt = conn.prepareStatement(
+                "INSERT INTO connection_tag_and_question (tag_id, question_id) VALUES (?,?)");
+    }
+
+    void writeQuestions(List<JSONObject> questions) throws SQLException {
+        // 重新抓取的问题先删除旧的关联行，关联表没有主键，否则会重复插入
+        deleteConnections("connection_tag_and_question", "question_id", questions, "question_id");
+
+        for (JSONObject question : questions) {
+            int questionId = question.getInteger("question_id");
+            User owner = DatabaseService.getUser(question);
+            addQuestionBatch(question, owner);
+            pendingOwners.put(owner.getAccountId(), owner);
+
+            // 处理标签
+            for (Object tag : question.getJSONArray("tags")) {
+                pendingTags.add((String) tag);
+                pendingTagLinks.add(new TagLink((String) tag, questionId));
+            }
+
+            pendingPosts.add(new PendingPost(ApiExtractionStage.PostType.QUESTION, questionId,
+                    question.getString("body")));
+
+            if (++batchCount >= batchSize) {
+                flush("question", questionStmt, tagQuestionStmt);
+            }
+        }
+        flush("question", questionStmt, tagQuestionStmt);
+    }
+
+    void writeAnswers(List<JSONObject> answers) throws SQLException {
+        for (JSONObject answer : answers) {
+            User owner = DatabaseService.getUser(answer);
+            addAnswerBatch(answer, owner);
+            pendingOwners.put(owner.getAccountId(), owner);
+
+            pendingPosts.add(new PendingPost(ApiExtractionStage.PostType.ANSWER, answer.getInteger("answer_id"),
+                    answer.getString("body")));
+
+            if (++batchCount >= batchSize) {
+                flush("answer", answerStmt);
+            }
+        }
+        flush("answer", answerStmt);
+    }
+
+    void writeComments(List<JSONObject> comments) throws SQLException {
+        for (JSONObject comment : comments) {
+            User owner = DatabaseService.getUser(comment);
+            addCommentBatch(comment, owner);
+            pendingOwners.put(owner.getAccountId(), owner);
+
+            pendingPosts.add(new PendingPost(ApiExtractionStage.PostType.COMMENT, comment.getInteger("comment_id"),
+                    comment.getString("body")));
+
+            if (++batchCount >= batchSize) {
+                flush("comment", commentStmt);
+            }
+        }
+        flush("comment", commentStmt);
+    }
+
+    private void addQuestionBatch(JSONObject question, User owner) throws SQLException {
+        questionStmt.setInt(1, question.getInteger("question_id"));
+        questionStmt.setInt(2, question.getInteger("score"));
+        questionStmt.setString(3, question.getString("link"));
+        questionStmt.setInt(4, question.getInteger("answer_count"));
+        questionStmt.setInt(5, question.getInteger("view_count"));
+        questionStmt.setString(6, question.getString("content_license"));
+        questionStmt.setString(7, question.getString("title"));
+        questionStmt.setTimestamp(8, convertDate(question.getInteger("last_activity_date")));
+        questionStmt.setTimestamp(9, convertDate(question.getInteger("last_edit_date")));
+        questionStmt.setTimestamp(10, convertDate(question.getInteger("creation_date")));
+        questionStmt.setInt(11, owner.getAccountId());
+        questionStmt.setString(12, question.getString("body"));
+        questionStmt.addBatch();
+    }
+
+    private void addAnswerBatch(JSONObject answer, User owner) throws SQLException {
+        answerStmt.setInt(1, answer.getInteger("answer_id"));
+        answerStmt.setTimestamp(2, convertDate(answer.getInteger("last_activity_date")));
+        answerStmt.setTimestamp(3, convertDate(answer.getInteger("last_edit_date")));
+        answerStmt.setTimestamp(4, convertDate(answer.getInteger("creation_date")));
+        answerStmt.setInt(5, answer.getInteger("score"));
+        answerStmt.setBoolean(6, answer.getBoolean("is_accepted"));
+        answerStmt.setString(7, answer.getString("content_license"));
+        answerStmt.setInt(8, answer.getInteger("question_id"));
+        answerStmt.setString(9, answer.getString("body"));
+        answerStmt.setInt(10, owner.getAccountId());
+        answerStmt.addBatch();
+    }
+
+    private void addCommentBatch(JSONObject comment, User owner) throws SQLException {
+        commentStmt.setInt(1, comment.getInteger("comment_id"));
+        commentStmt.setBoolean(2, comment.getBoolean("edited"));
+        commentStmt.setInt(3, comment.getInteger("post_id"));
+        commentStmt.setString(4, comment.getString("body"));
+        commentStmt.setTimestamp(5, convertDate(comment.getInteger("creation_date")));
+        commentStmt.setInt(6, comment.getInteger("score"));
+        commentStmt.setString(7, comment.getString("content_license"));
+        commentStmt.setInt(8, owner.getAccountId());
+        commentStmt.addBatch();
+    }
+
+    // 先按主键顺序写共享维度行，再写本批的帖子和关联行，然后提交
+    private void flush(String table, PreparedStatement... postStatements) throws SQLException {
+        long started = System.nanoTime();
+        List<User> owners = new ArrayList<>();
+        for (User owner : pendingOwners.values()) {
+            if (dimensions.isOwnerCurrent(owner)) {
+                continue;
+            }
+            ownerStmt.setInt(1, owner.getAccountId());
+            ownerStmt.setInt(2, owner.getUserId());
+            ownerStmt.setString(3, owner.getProfileImage());
+            ownerStmt.setString(4, owner.getLink());
+            ownerStmt.setString(5, owner.getUserType());
+            ownerStmt.setString(6, DatabaseService.displayName(owner));
+            ownerStmt.setInt(7, owner.getReputation());
+            ownerStmt.addBatch();
+            owners.add(owner);
+        }
+        if (!owners.isEmpty()) {
+            ownerStmt.executeBatch();
+        }
+        Map<String, Integer> tagIds = new HashMap<>();
+        Map<String, Integer> newTagIds = dimensions.resolve(conn, DimensionCache.Dimension.TAG, pendingTags, tagIds);
+        for (TagLink link : pendingTagLinks) {
+            tagQuestionStmt.setInt(1, tagIds.get(link.tag()));
+            tagQuestionStmt.setInt(2, link.questionId());
+            tagQuestionStmt.addBatch();
+        }
+        for (PreparedStatement stmt : postStatements) {
+            stmt.executeBatch();
+        }
+        long executed = System.nanoTime();
+        conn.commit();
+        if (batchCount > 0) {
+            metrics.dbBatch(table, batchCount, executed - started, System.nanoTime() - executed);
+        }
+        dimensions.ownersWritten(owners);
+        dimensions.idsWritten(DimensionCache.Dimension.TAG, newTagIds);
+
+        pendingOwners.clear();
+        pendingTags.clear();
+        pendingTagLinks.clear();
+        batchCount = 0;
+
+        // 帖子已经在库中，此时才抽取 API；submit 可能因在途上限阻塞，但已不持有未提交的事务
+        for (PendingPost post : pendingPosts) {
+            apiExtraction.submit(post.type(), post.postId(), post.body());
+        }
+        pendingPosts.clear();
+    }
+
+    private void deleteConnections(String table, String column, List<JSONObject> posts, String idField)
+            throws SQLException {
+        if (posts.isEmpty()) {
+            return;
+        }
+        Integer[] ids = posts.stream().map(post -> post.getInteger(idField)).toArray(Integer[]::new);
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM " + table + " WHERE " + column + " = ANY(?)")) {
+            stmt.setArray(1, conn.createArrayOf("integer", ids));
+            stmt.executeUpdate();
+        }
+    }
+
+    private static Timestamp convertDate(Integer date) {
+        return date == null ? null : new Timestamp(date * 1000L);
+    }
+
+    // 未提交的批次回滚，语句随连接一起关闭
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!conn.isClosed() && !conn.getAutoCommit()) {
+                conn.rollback();
+            }
+            for (PreparedStatement stmt : List.of(questionStmt, answerStmt, commentStmt, ownerStmt, tagQuestionStmt)) {
+                stmt.close();
+            }
+        } finally {
+            conn.close();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package cn.edu.sustech.crawler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 区分代码块的 java.* API 抽取，API 名统一成 包.类[.嵌套类][.成员] 的规范形式后再计数。
+ * 对 HTML 正文流式扫描一遍，不构造 DOM：标签跳过，实体解码，&lt;code&gt;/&lt;pre&gt; 内按 Java 源码处理，其余按正文处理。
+ * <ul>
+ *     <li>限定名去掉泛型参数、数组、调用括号和末尾标点，$ 与 # 视同 .，第一个成员之后的部分丢弃，
+ *     "java.util.*" 这类按需导入记为包名；</li>
+ *     <li>代码中的字符串和字符字面量不计数；</li>
+ *     <li>代码中的 import / import static 声明按导入的名字计数一次，之后代码里单独出现的简单类名
+ *     或静态导入的成员名也按导入的全限定名计数；只认已经扫描过的导入。</li>
+ * </ul>
+ */
+public class CodeAwareJavaApiExtractor implements JavaApiExtractor {
+    private static final String PREFIX = "java.";
+
+    @Override
+    public Map<String, Integer> getAllJavaAPI(String htmlText) {
+        Scan scan = new Scan();
+        int length = htmlText.length();
+        int i = 0;
+        while (i < length) {
+            char c = htmlText.charAt(i);
+            if (c == '<') {
+                int end = scan.tag(htmlText, i);
+                if (end > i) {
+                    i = end;
+                    continue;
+                }
+            } else if (c == '&') {
+                int end = htmlText.indexOf(';', i + 1);
+                if (end > i + 1 && end - i <= 10) {
+                    scan.accept(decodeEntity(htmlText, i + 1, end));
+                    i = end + 1;
+                    continue;
+                }
+            }
+            scan.accept(c);
+            i++;
+        }
+        scan.finishWord();
+        return scan.apis;
+    }
+
+    // 把以 java. 开头的限定名规范化，没有合法的包名段时返回 null
+    static String normalize(String name) {
+        StringBuilder canonical = new StringBuilder(name.length()).append("java");
+        boolean inClass = false;
+        int segments = 0;
+        int pos = PREFIX.length();
+        while (pos < name.length()) {
+            int end = pos;
+            while (end < name.length() && !isSeparator(name.charAt(end))) {
+                end++;
+            }
+            // 空段、* 或数字开头的段都到此为止
+            if (end == pos || !Character.isJavaIdentifierStart(name.charAt(pos))) {
+                break;
+            }
+            canonical.append('.').append(name, pos, end);
+            segments++;
+            if (Character.isUpperCase(name.charAt(pos))) {
+                inClass = true;
+            } else if (inClass) {
+                // 类之后的第一个小写段是成员
+                break;
+            }
+            pos = end + 1;
+        }
+        return segments == 0 ? null : canonical.toString();
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '.' || c == '$' || c == '#';
+    }
+
+    // 解码 &name; 或 &#NN;，不认识的实体当作分隔符
+    private static char decodeEntity(String text, int start, int end) {
+        if (text.charAt(start) == '#') {
+            try {
+                int code = text.charAt(start + 1) == 'x' || text.charAt(start + 1) == 'X'
+                        ? Integer.parseInt(text.substring(start + 2, end), 16)
+                        : Integer.parseInt(text.substring(start + 1, end));
+                return code > 0 && code <= Character.MAX_VALUE ? (char) code : ' ';
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                return ' ';
+            }
+        }
+        return switch (text.substring(start, end)) {
+            case "lt" -> '<';
+            case "gt" -> '>';
+            case "amp" -> '&';
+            case "quot" -> '"';
+            case "apos" -> '\'';
+            default -> ' ';
+        };
+    }
+
+    // 单个帖子的扫描状态
+    private static final class Scan {
+        private static final int NO_IMPORT = 0;
+        private static final int IMPORT = 1;
+        private static final int IMPORT_STATIC = 2;
+
+        private final Map<String, Integer> apis = new HashMap<>();
+        // 简单名 -> 导入的规范名
+        private final Map<String, String> imports = new HashMap<>();
+        private final StringBuilder word = new StringBuilder();
+        private int codeDepth;
+        private char literal;
+        private boolean escaped;
+        private int importState = NO_IMPORT;
+
+        void accept(char c) {
+            if (codeDepth > 0) {
+                if (literal != 0) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == literal || c == '\n') {
+                        literal = 0;
+                    }
+                    return;
+                }
+                if (c == '"' || c == '\'') {
+                    finishWord();
+                    literal = c;
+                    return;
+                }
+            }
+            if (isWordChar(c)) {
+                word.append(c);
+            } else {
+                finishWord();
+                if (c == ';') {
+                    importState = NO_IMPORT;
+                }
+            }
+        }
+
+        // 限定名由标识符字符和 . # 组成，* 只能紧跟在 . 之后
+        private boolean isWordChar(char c) {
+            if (c == '.' || c == '#') {
+                return true;
+            }
+            if (c == '*') {
+                return word.length() > 0 && word.charAt(word.length() - 1) == '.';
+            }
+            return Character.isJavaIdentifierPart(c) && !Character.isIdentifierIgnorable(c);
+        }
+
+        void finishWord() {
+            if (word.length() == 0) {
+                return;
+            }
+            String name = word.toString();
+            word.setLength(0);
+            if (codeDepth > 0) {
+                if (importState == IMPORT && name.equals("static")) {
+                    importState = IMPORT_STATIC;
+                    return;
+                }
+                if (importState != NO_IMPORT) {
+                    importState = NO_IMPORT;
+                    declareImport(name);
+                    return;
+                }
+                if (name.equals("import")) {
+                    importState = IMPORT;
+                    return;
+                }
+            }
+            if (name.startsWith(PREFIX)) {
+                count(normalize(name));
+            } else if (codeDepth > 0 && !imports.isEmpty() && name.indexOf('.') < 0 && name.indexOf('#') < 0) {
+                count(imports.get(name));
+            }
+        }
+
+        private void declareImport(String name) {
+            String simpleName = name.substring(name.lastIndexOf('.') + 1);
+            if (!name.startsWith(PREFIX)) {
+                // 同名的非 JDK 类型会遮蔽之前的导入
+                imports.remove(simpleName);
+                return;
+            }
+            String canonical = normalize(name);
+            count(canonical);
+            if (canonical != null && !simpleName.equals("*") && canonical.endsWith("." + simpleName)) {
+                imports.put(simpleName, canonical);
+            }
+        }
+
+        private void count(String api) {
+            if (api != null) {
+                apis.merge(api, 1, Integer::sum);
+            }
+        }
+
+        // 若 start 处是标签则处理并返回标签结束后的位置，否则返回 -1
+        int tag(String text, int start) {
+            int length = text.length();
+            int i = start + 1;
+            if (i >= length) {
+                return -1;
+            }
+            if (text.startsWith("!--", i)) {
+                int end = text.indexOf("-->", i + 3);
+                finishWord();
+                return end < 0 ? length : end + 3;
+            }
+            boolean closing = text.charAt(i) == '/';
+            if (closing) {
+                i++;
+            }
+            int nameStart = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == nameStart || !Character.isLetter(text.charAt(nameStart))) {
+                return -1;
+            }
+            String name = text.substring(nameStart, i);
+            // 跳过属性，引号中的 > 不结束标签
+            char quote = 0;
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    break;
+                }
+            }
+            if (i >= length) {
+                return -1;
+            }
+            finishWord();
+            if (name.equalsIgnoreCase("code") || name.equalsIgnoreCase("pre")) {
+                codeDepth = closing ? Math.max(0, codeDepth - 1) : codeDepth + 1;
+                literal = 0;
+                escaped = false;
+                importState = NO_IMPORT;
+            }
+            return i + 1;
+        }
+    }
+}
@@ -1,23 +1,30 @@
 // CollectionProgress.java
 package cn.edu.sustech.crawler;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 
 @Data
 public class CollectionProgress implements Serializable {
     private static final Logger logger = LoggerFactory.getLogger(CollectionProgress.class);
-    private static final String PROGRESS_FILE = "collection_progress.json";
+    private static final String SNAPSHOT_FILE = "collection_progress.snapshot";
+    private static final String LOG_FILE = "collection_progress.log";
+    // 旧版本保存的 JSON 进度，已不再读取
+    private static final String LEGACY_PROGRESS_FILE = "collection_progress.json";
+    // 每追加多少条 ID 记录刷一次盘
+    private static final int FLUSH_INTERVAL = 100;
 
     // 总体进度信息
     private int totalQuestions;
@@ -25,11 +32,20 @@ public class CollectionProgress implements Serializable {
     private int lastProcessedPage;
     private int totalPages;
 
-    // 详细的采集进度
-    private Map<Integer, QuestionProgress> questionProgressMap;
-    private Set<Integer> completedQuestionIds;
-    private Set<Integer> completedAnswerIds;
-    private Set<Integer> completedCommentIds;
+    // 详细的采集进度（ID 集合使用不装箱的开放寻址容器）
+    private IntObjectHashMap<QuestionProgress> questionProgressMap;
+    private IntHashSet completedQuestionIds;
+    private IntHashSet completedAnswerIds;
+    private IntHashSet completedCommentIds;
+    // 答案 ID -> 所属问题 ID，由答案记录重建，不单独持久化
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private IntIntHashMap answerOwners;
+
+    // 分片采集的窗口及其断点，键为 标签@起始时间
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<String, WindowStatus> windows;
 
     // 批次信息，用于断点续传
     private List<Integer> currentBatchQuestionIds;
@@ -38,217 +54,539 @@ public class CollectionProgress implements Serializable {
     private LocalDateTime lastUpdateTime;
     private CollectionState state;
 
+    // 进度变化以小记录的形式追加到日志，重放期间为 null
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient ProgressLog log;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int unflushedRecords;
+
     public CollectionProgress() {
-        this.questionProgressMap = new HashMap<>();
-        this.completedQuestionIds = new HashSet<>();
-        this.completedAnswerIds = new HashSet<>();
-        this.completedCommentIds = new HashSet<>();
+        this.questionProgressMap = new IntObjectHashMap<>();
+        this.completedQuestionIds = new IntHashSet();
+        this.completedAnswerIds = new IntHashSet();
+        this.completedCommentIds = new IntHashSet();
+        this.answerOwners = new IntIntHashMap(0);
         this.currentBatchQuestionIds = new ArrayList<>();
+        this.windows = new LinkedHashMap<>();
         this.lastUpdateTime = LocalDateTime.now();
         this.state = CollectionState.NOT_STARTED;
     }
 
     public static CollectionProgress loadProgress() {
-        File file = new File(PROGRESS_FILE);
-        if (!file.exists()) {
-            return new CollectionProgress();
+        return loadProgress(new File("."));
+    }
+
+    // 从指定目录加载进度（回放归档时进度与在线采集分开存放）
+    public static CollectionProgress loadProgress(File directory) {
+        return loadProgress(directory, ApiConfig.PROGRESS_COMPACT_RECORDS);
+    }
+
+    static CollectionProgress loadProgress(File directory, int compactThreshold) {
+        File snapshotFile = new File(directory, SNAPSHOT_FILE);
+        File logFile = new File(directory, LOG_FILE);
+        ProgressLog log = new ProgressLog(snapshotFile, logFile, compactThreshold);
+
+        CollectionProgress progress = new CollectionProgress();
+        if (log.replay(progress.replayHandler())) {
+            long modified = Math.max(snapshotFile.lastModified(), logFile.lastModified());
+            progress.lastUpdateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(modified), ZoneId.systemDefault());
+            logger.info("Loaded progress from {}, state: {}, questions: {}, answers: {}, comments: {}",
+                    progress.lastUpdateTime, progress.state, progress.completedQuestionIds.size(),
+                    progress.completedAnswerIds.size(), progress.completedCommentIds.size());
+        } else if (new File(directory, LEGACY_PROGRESS_FILE).exists()) {
+            // 旧格式按页码记录断点，和按窗口分片的采集对不上，不做迁移
+            logger.warn("Found {} written by an older crawler version; it is no longer read and the crawl starts "
+                    + "from scratch. Delete or move the file once the new progress files are in place",
+                    new File(directory, LEGACY_PROGRESS_FILE));
         }
 
         try {
-            String json = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-            CollectionProgress progress = JSON.parseObject(json, CollectionProgress.class);
-            logger.info("Loaded progress from {}", progress.getLastUpdateTime());
-            return progress;
-        } catch (IOException | RuntimeException e) {
-            logger.error("Failed to load progress, starting fresh", e);
-            return new CollectionProgress();
+            log.openForAppend();
+            progress.log = log;
+            // 启动时压缩一次：丢弃崩溃留下的半条记录，并从一份干净的快照开始追加
+            progress.compact();
+        } catch (IOException e) {
+            throw new ApiException("Failed to open progress log " + logFile, e);
         }
+        return progress;
     }
 
     // 更新总体统计信息
-    public void updateStatistics(int totalQuestions, int noAnswerQuestions, int totalPages) {
+    public synchronized void updateStatistics(int totalQuestions, int noAnswerQuestions, int totalPages) {
+        applyStatistics(totalQuestions, noAnswerQuestions, totalPages);
+        append(writer -> writer.stats(totalQuestions, noAnswerQuestions, totalPages), true);
+    }
+
+    // 抓取流水线的多个线程会并发记录进度，所有读写都在对象锁内完成
+    // 进度中只记录 ID，问题、答案、评论的正文由 DataCollector 负责写库
+    // 记录问题的采集进度
+    public synchronized void recordQuestionProgress(int questionId) {
+        applyQuestion(questionId);
+        append(writer -> writer.question(questionId), false);
+    }
+
+    // 记录答案的采集进度
+    public synchronized void recordAnswerProgress(int questionId, int answerId) {
+        if (applyAnswer(questionId, answerId)) {
+            append(writer -> writer.answer(questionId, answerId), false);
+        }
+    }
+
+    // 记录评论的采集进度
+    public synchronized void recordCommentProgress(int targetId, boolean isQuestion, int commentId) {
+        applyComment(targetId, isQuestion, commentId);
+        append(writer -> writer.comment(targetId, isQuestion, commentId), false);
+    }
+
+    // 记录规划出的窗口，此后该窗口的断点由 recordWindowPage 推进
+    public synchronized void recordWindow(ShardPlanner.Window window) {
+        applyWindow(window.tag(), window.from(), window.to(), window.total());
+        append(writer -> writer.window(window.tag(), window.from(), window.to(), window.total()), true);
+    }
+
+    // 窗口内第 page 页的问题已写库；done 为 true 时整个窗口完成
+    public synchronized void recordWindowPage(ShardPlanner.Window window, int page, boolean done) {
+        applyWindowPage(window.tag(), window.from(), page, done);
+        append(writer -> writer.windowPage(window.tag(), window.from(), page, done), true);
+    }
+
+    // 已规划的窗口及其断点
+    public synchronized List<WindowStatus> listWindows() {
+        return new ArrayList<>(windows.values());
+    }
+
+    // 这些问题的答案已全部写库，续传时不再重新请求
+    public synchronized void markAnswersCollected(List<Integer> questionIds) {
+        int[] ids = questionIds.stream().mapToInt(Integer::intValue).toArray();
+        applyAnswersDone(ids);
+        append(writer -> writer.answersDone(ids), false);
+    }
+
+    // 这些问题（或答案）的评论已全部写库，续传时不再重新请求
+    public synchronized void markCommentsCollected(boolean isQuestion, List<Integer> postIds) {
+        int[] ids = postIds.stream().mapToInt(Integer::intValue).toArray();
+        applyCommentsDone(isQuestion, ids);
+        append(writer -> writer.commentsDone(isQuestion, ids), false);
+    }
+
+    // 更新批次信息
+    public synchronized void updateBatch(List<Integer> batchQuestionIds, int batchIndex) {
+        this.currentBatchQuestionIds = new ArrayList<>(batchQuestionIds);
+        this.currentBatchIndex = batchIndex;
+        int[] ids = batchQuestionIds.stream().mapToInt(Integer::intValue).toArray();
+        append(writer -> writer.batch(batchIndex, ids), true);
+    }
+
+    // 把缓冲中的日志记录刷到磁盘
+    public synchronized void saveProgress() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.flush();
+            unflushedRecords = 0;
+        } catch (IOException e) {
+            logger.error("Failed to save progress", e);
+        }
+    }
+
+    private void append(ProgressLog.SnapshotSource record, boolean checkpoint) {
+        lastUpdateTime = LocalDateTime.now();
+        if (log == null) {
+            return;
+        }
+        try {
+            record.writeTo(log.writer());
+            if (log.needsCompaction()) {
+                compact();
+            } else if (checkpoint || ++unflushedRecords >= FLUSH_INTERVAL) {
+                log.flush();
+                unflushedRecords = 0;
+            }
+        } catch (IOException e) {
+            logger.error("Failed to append progress record", e);
+        }
+    }
+
+    // 把当前完整状态写成快照并清空日志
+    private void compact() throws IOException {
+        log.compact(this::writeSnapshot);
+        unflushedRecords = 0;
+    }
+
+    private void writeSnapshot(ProgressLog.Writer writer) throws IOException {
+        writer.stats(totalQuestions, noAnswerQuestions, totalPages);
+        writer.page(lastProcessedPage);
+        writer.state(state);
+        if (!currentBatchQuestionIds.isEmpty()) {
+            writer.batch(currentBatchIndex, currentBatchQuestionIds.stream().mapToInt(Integer::intValue).toArray());
+        }
+        for (WindowStatus status : windows.values()) {
+            ShardPlanner.Window window = status.window();
+            writer.window(window.tag(), window.from(), window.to(), window.total());
+            if (status.lastPage() > 0 || status.done()) {
+                writer.windowPage(window.tag(), window.from(), status.lastPage(), status.done());
+            }
+        }
+        IntHashSet writtenComments = new IntHashSet(completedCommentIds.size());
+        for (int questionId : completedQuestionIds.toArray()) {
+            writer.question(questionId);
+            QuestionProgress progress = questionProgressMap.get(questionId);
+            for (int answerId : progress.answers.toArray()) {
+                writer.answer(questionId, answerId);
+            }
+            for (int commentId : progress.questionComments.toArray()) {
+                writer.comment(questionId, true, commentId);
+                writtenComments.add(commentId);
+            }
+            IOException[] error = new IOException[1];
+            progress.answerComments.forEach((answerId, commentIds) -> commentIds.forEach(commentId -> {
+                try {
+                    writer.comment(answerId, false, commentId);
+                    writtenComments.add(commentId);
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+            }));
+            if (error[0] != null) {
+                throw error[0];
+            }
+        }
+        // 找不到所属帖子的评论只保留 ID
+        for (int commentId : completedCommentIds.toArray()) {
+            if (!writtenComments.contains(commentId)) {
+                writer.comment(0, true, commentId);
+            }
+        }
+        // 完成标记依赖上面的问题与答案记录，放在快照末尾
+        List<Integer> answered = new ArrayList<>();
+        List<Integer> commentedQuestions = new ArrayList<>();
+        List<Integer> commentedAnswers = new ArrayList<>();
+        questionProgressMap.forEach((questionId, progress) -> {
+            if (progress.answersCollected) {
+                answered.add(questionId);
+            }
+            if (progress.questionCommentsCollected) {
+                commentedQuestions.add(questionId);
+            }
+            progress.commentedAnswers.forEach(commentedAnswers::add);
+        });
+        writer.answersDone(answered.stream().mapToInt(Integer::intValue).toArray());
+        writer.commentsDone(true, commentedQuestions.stream().mapToInt(Integer::intValue).toArray());
+        writer.commentsDone(false, commentedAnswers.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private ProgressLog.Handler replayHandler() {
+        return new ProgressLog.Handler() {
+            @Override
+            public void onStats(int totalQuestions, int noAnswerQuestions, int totalPages) {
+                applyStatistics(totalQuestions, noAnswerQuestions, totalPages);
+            }
+
+            @Override
+            public void onPage(int page) {
+                lastProcessedPage = page;
+            }
+
+            @Override
+            public void onState(CollectionState recordedState) {
+                state = recordedState;
+            }
+
+            @Override
+            public void onQuestion(int questionId) {
+                applyQuestion(questionId);
+            }
+
+            @Override
+            public void onAnswer(int questionId, int answerId) {
+                applyAnswer(questionId, answerId);
+            }
+
+            @Override
+            public void onComment(int targetId, boolean isQuestion, int commentId) {
+                applyComment(targetId, isQuestion, commentId);
+            }
+
+            @Override
+            public void onBatch(int batchIndex, int[] questionIds) {
+                currentBatchIndex = batchIndex;
+                currentBatchQuestionIds = new ArrayList<>(questionIds.length);
+                for (int questionId : questionIds) {
+                    currentBatchQuestionIds.add(questionId);
+                }
+            }
+
+            @Override
+            public void onWindow(String tag, long from, long to, int total) {
+                applyWindow(tag, from, to, total);
+            }
+
+            @Override
+            public void onWindowPage(String tag, long from, int page, boolean done) {
+                applyWindowPage(tag, from, page, done);
+            }
+
+            @Override
+            public void onAnswersDone(int[] questionIds) {
+                applyAnswersDone(questionIds);
+            }
+
+            @Override
+            public void onCommentsDone(boolean isQuestion, int[] postIds) {
+                applyCommentsDone(isQuestion, postIds);
+            }
+        };
+    }
+
+    private void applyWindow(String tag, long from, long to, int total) {
+        windows.putIfAbsent(tag + "@" + from, new WindowStatus(new ShardPlanner.Window(tag, from, to, total), 0, false));
+    }
+
+    private void applyWindowPage(String tag, long from, int page, boolean done) {
+        windows.computeIfPresent(tag + "@" + from, (key, status) -> new WindowStatus(status.window(), page, done));
+    }
+
+    private void applyAnswersDone(int[] questionIds) {
+        for (int questionId : questionIds) {
+            QuestionProgress progress = questionProgressMap.get(questionId);
+            if (progress != null) {
+                progress.answersCollected = true;
+            }
+        }
+    }
+
+    private void applyCommentsDone(boolean isQuestion, int[] postIds) {
+        for (int postId : postIds) {
+            if (isQuestion) {
+                QuestionProgress progress = questionProgressMap.get(postId);
+                if (progress != null) {
+                    progress.questionCommentsCollected = true;
+                }
+            } else {
+                QuestionProgress progress = findAnswerOwner(postId);
+                if (progress != null) {
+                    progress.commentedAnswers.add(postId);
+                }
+            }
+        }
+    }
+
+    private void applyStatistics(int totalQuestions, int noAnswerQuestions, int totalPages) {
         this.totalQuestions = totalQuestions;
         this.noAnswerQuestions = noAnswerQuestions;
         this.totalPages = totalPages;
-        saveProgress();
     }
 
-    // 记录问题的采集进度
-    public void recordQuestionProgress(int questionId, JSONObject questionData) {
-        QuestionProgress progress = new QuestionProgress(questionId, questionData);
-        questionProgressMap.put(questionId, progress);
+    private void applyQuestion(int questionId) {
+        questionProgressMap.computeIfAbsent(questionId, QuestionProgress::new);
         completedQuestionIds.add(questionId);
-        lastUpdateTime = LocalDateTime.now();
-        if (completedQuestionIds.size() % 100 == 0) saveProgress();
     }
 
-    // 记录答案的采集进度
-    public void recordAnswerProgress(int questionId, int answerId, JSONObject answerData) {
+    private boolean applyAnswer(int questionId, int answerId) {
         QuestionProgress progress = questionProgressMap.get(questionId);
-        if (progress != null) {
-            progress.addAnswer(answerId, answerData);
-            completedAnswerIds.add(answerId);
-            lastUpdateTime = LocalDateTime.now();
-            if (completedAnswerIds.size() % 100 == 0) saveProgress();
+        if (progress == null) {
+            return false;
         }
+        progress.addAnswer(answerId);
+        completedAnswerIds.add(answerId);
+        answerOwners.put(answerId, questionId);
+        return true;
     }
 
-    // 记录评论的采集进度
-    public void recordCommentProgress(int targetId, boolean isQuestion, JSONObject commentData) {
-        int commentId = commentData.getInteger("comment_id");
+    private void applyComment(int targetId, boolean isQuestion, int commentId) {
         if (isQuestion) {
             QuestionProgress progress = questionProgressMap.get(targetId);
             if (progress != null) {
-                progress.addQuestionComment(commentId, commentData);
+                progress.addQuestionComment(commentId);
             }
         } else {
-            for (QuestionProgress progress : questionProgressMap.values()) {
-                if (progress.hasAnswer(targetId)) {
-                    progress.addAnswerComment(targetId, commentId, commentData);
-                    break;
-                }
+            QuestionProgress progress = findAnswerOwner(targetId);
+            if (progress != null) {
+                progress.addAnswerComment(targetId, commentId);
             }
         }
         completedCommentIds.add(commentId);
-        lastUpdateTime = LocalDateTime.now();
-        if (completedCommentIds.size() % 100 == 0) saveProgress();
     }
 
-    // 更新批次信息
-    public void updateBatch(List<Integer> batchQuestionIds, int batchIndex) {
-        this.currentBatchQuestionIds = new ArrayList<>(batchQuestionIds);
-        this.currentBatchIndex = batchIndex;
-        saveProgress();
+    // 已记录的问题 / 答案 ID 副本，用于续传时重新派发任务
+    public synchronized List<Integer> listQuestionIds() {
+        return toList(completedQuestionIds);
     }
 
-    public void saveProgress() {
-        try {
-            String json = JSON.toJSONString(this);
-            File tempFile = new File(PROGRESS_FILE + ".tmp");
-            File targetFile = new File(PROGRESS_FILE);
+    public synchronized List<Integer> listAnswerIds() {
+        return toList(completedAnswerIds);
+    }
+
+    public synchronized List<Integer> listCommentIds() {
+        return toList(completedCommentIds);
+    }
 
-            // 先写入临时文件
-            try (FileWriter writer = new FileWriter(tempFile)) {
-                writer.write(json);
+    // 续传时尚未完成的下游工作：答案未采完的问题、评论未采完的问题与答案
+    public synchronized List<Integer> listPendingAnswerQuestionIds() {
+        List<Integer> pending = new ArrayList<>();
+        questionProgressMap.forEach((questionId, progress) -> {
+            if (!progress.hasCollectedAnswers()) {
+                pending.add(questionId);
             }
+        });
+        return pending;
+    }
 
-            // 原子性地替换文件
-            if (!tempFile.renameTo(targetFile)) {
-                if (targetFile.exists() && !targetFile.delete()) {
-                    logger.error("Failed to delete old progress file");
-                    return;
-                }
-                if (!tempFile.renameTo(targetFile)) {
-                    logger.error("Failed to rename temp file to progress file");
-                }
+    public synchronized List<Integer> listPendingCommentQuestionIds() {
+        List<Integer> pending = new ArrayList<>();
+        questionProgressMap.forEach((questionId, progress) -> {
+            if (!progress.hasCollectedQuestionComments()) {
+                pending.add(questionId);
             }
+        });
+        return pending;
+    }
 
-            //logger.info("Progress saved successfully at {}", lastUpdateTime);
+    public synchronized List<Integer> listPendingCommentAnswerIds() {
+        List<Integer> pending = new ArrayList<>();
+        questionProgressMap.forEach((questionId, progress) -> progress.answers.forEach(answerId -> {
+            if (!progress.hasCollectedAnswerComments(answerId)) {
+                pending.add(answerId);
+            }
+        }));
+        return pending;
+    }
+
+    // 丢弃全部进度并从空状态重新开始，快照与日志同时清空
+    public synchronized void reset() {
+        questionProgressMap = new IntObjectHashMap<>();
+        completedQuestionIds = new IntHashSet();
+        completedAnswerIds = new IntHashSet();
+        completedCommentIds = new IntHashSet();
+        answerOwners = new IntIntHashMap(0);
+        windows = new LinkedHashMap<>();
+        currentBatchQuestionIds = new ArrayList<>();
+        currentBatchIndex = 0;
+        lastProcessedPage = 0;
+        state = CollectionState.NOT_STARTED;
+        lastUpdateTime = LocalDateTime.now();
+        if (log == null) {
+            return;
+        }
+        try {
+            compact();
         } catch (IOException e) {
-            logger.error("Failed to save progress", e);
+            logger.error("Failed to reset progress", e);
         }
     }
 
+    private static List<Integer> toList(IntHashSet ids) {
+        List<Integer> list = new ArrayList<>(ids.size());
+        ids.forEach(list::add);
+        return list;
+    }
+
+    private QuestionProgress findAnswerOwner(int answerId) {
+        int questionId = answerOwners.get(answerId);
+        return questionId == 0 ? null : questionProgressMap.get(questionId);
+    }
+
     // 获取尚未完成的问题ID列表
-    public List<Integer> getIncompleteQuestionIds() {
+    public synchronized List<Integer> getIncompleteQuestionIds() {
         //logger.info("Successfully loaded progress from {}", lastUpdateTime);
         List<Integer> incompleteIds = new ArrayList<>();
-        for (Map.Entry<Integer, QuestionProgress> entry : questionProgressMap.entrySet()) {
-            if (!entry.getValue().isComplete()) {
-                incompleteIds.add(entry.getKey());
+        questionProgressMap.forEach((questionId, progress) -> {
+            if (!progress.isComplete()) {
+                incompleteIds.add(questionId);
             }
-        }
+        });
         return incompleteIds;
     }
 
     // 检查是否需要继续采集答案
-    public boolean needsAnswerCollection(int questionId) {
+    public synchronized boolean needsAnswerCollection(int questionId) {
         QuestionProgress progress = questionProgressMap.get(questionId);
         return progress != null && !progress.hasCollectedAnswers();
     }
 
     // 检查是否需要继续采集评论
-    public boolean needsCommentCollection(int targetId, boolean isQuestion) {
+    public synchronized boolean needsCommentCollection(int targetId, boolean isQuestion) {
         if (isQuestion) {
             QuestionProgress progress = questionProgressMap.get(targetId);
             return progress != null && !progress.hasCollectedQuestionComments();
         } else {
-            for (QuestionProgress progress : questionProgressMap.values()) {
-                if (progress.hasAnswer(targetId) && !progress.hasCollectedAnswerComments(targetId)) {
-                    return true;
-                }
-            }
+            QuestionProgress progress = findAnswerOwner(targetId);
+            return progress != null && !progress.hasCollectedAnswerComments(targetId);
         }
-        return false;
     }
 
 
-    public void setLastProcessedPage(int page) {
+    public synchronized void setLastProcessedPage(int page) {
         this.lastProcessedPage = page;
-        lastUpdateTime = LocalDateTime.now();
-        saveProgress();
+        append(writer -> writer.page(page), true);
     }
 
 
     // Setters
-    public void setState(CollectionState state) {
+    public synchronized void setState(CollectionState state) {
         this.state = state;
-        lastUpdateTime = LocalDateTime.now();
-        saveProgress();
+        append(writer -> writer.state(state), true);
+    }
+
+    /**
+     * 窗口的断点：lastPage 为已写库的最后一页（0 表示尚未开始），done 表示窗口已采集完。
+     */
+    public record WindowStatus(ShardPlanner.Window window, int lastPage, boolean done) {
     }
 
     // 内部类：问题进度
     private static class QuestionProgress implements Serializable {
         private final int questionId;
-        private final JSONObject questionData;
-        private final Map<Integer, JSONObject> answers;
-        private final Map<Integer, JSONObject> questionComments;
-        private final Map<Integer, Map<Integer, JSONObject>> answerComments;
+        private final IntHashSet answers;
+        private final IntHashSet questionComments;
+        private final IntObjectHashMap<IntHashSet> answerComments;
         private boolean answersCollected; // 是否已经采集了所有答案
         private boolean questionCommentsCollected; // 是否已经采集了该问题的评论
-        private boolean answerCommentsCollected; // 是否已经采集了所有答案的评论
+        private final IntHashSet commentedAnswers; // 评论已采集完的答案
 
         public QuestionProgress() {
-            this.questionId = 0;
-            this.questionData = new JSONObject();
-            this.answers = new HashMap<>();
-            this.questionComments = new HashMap<>();
-            this.answerComments = new HashMap<>();
-            this.answersCollected = false;
-            this.questionCommentsCollected = false;
-            this.answerCommentsCollected = false;
+            this(0);
         }
 
-        public QuestionProgress(int questionId, JSONObject questionData) {
+        public QuestionProgress(int questionId) {
             this.questionId = questionId;
-            this.questionData = questionData;
-            this.answers = new HashMap<>();
-            this.questionComments = new HashMap<>();
-            this.answerComments = new HashMap<>();
+            this.answers = new IntHashSet(4);
+            this.questionComments = new IntHashSet(4);
+            this.answerComments = new IntObjectHashMap<>(4);
             this.answersCollected = false;
             this.questionCommentsCollected = false;
-            this.answerCommentsCollected = false;
+            this.commentedAnswers = new IntHashSet(4);
         }
 
-        public void addAnswer(int answerId, JSONObject answerData) {
-            answers.put(answerId, answerData);
+        public void addAnswer(int answerId) {
+            answers.add(answerId);
         }
 
-        public void addQuestionComment(int commentId, JSONObject commentData) {
-            questionComments.put(commentId, commentData);
+        public void addQuestionComment(int commentId) {
+            questionComments.add(commentId);
         }
 
-        public void addAnswerComment(int answerId, int commentId, JSONObject commentData) {
-            answerComments.computeIfAbsent(answerId, k -> new HashMap<>())
-                    .put(commentId, commentData);
+        public void addAnswerComment(int answerId, int commentId) {
+            answerComments.computeIfAbsent(answerId, k -> new IntHashSet(4)).add(commentId);
         }
 
         public boolean hasAnswer(int answerId) {
-            return answers.containsKey(answerId);
+            return answers.contains(answerId);
         }
 
         public boolean isComplete() {
-            return answersCollected && questionCommentsCollected && answerCommentsCollected;
+            if (!answersCollected || !questionCommentsCollected) {
+                return false;
+            }
+            for (int answerId : answers.toArray()) {
+                if (!commentedAnswers.contains(answerId)) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         public boolean hasCollectedAnswers() {
@@ -260,7 +598,7 @@ public class CollectionProgress implements Serializable {
         }
 
         public boolean hasCollectedAnswerComments(int answerId) {
-            return answerCommentsCollected && answers.containsKey(answerId);
+            return commentedAnswers.contains(answerId);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,100 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 有界线程池上的分阶段抓取流水线：任务可以在执行过程中继续提交下游任务，
+ * {@link #await()} 会一直等到所有任务（包括派生出的任务）全部完成。
+ */
+public class CrawlPipeline implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlPipeline.class);
+
+    private final ExecutorService workers;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Object lock = new Object();
+    private int pending = 0;
+
+    public CrawlPipeline(int workerCount) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "crawler-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 提交一个阶段任务；一旦有任务失败，后续提交的任务都会被丢弃
+    public void submit(String stage, Runnable task) {
+        if (failure.get() != null) {
+            return;
+        }
+        synchronized (lock) {
+            pending++;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        task.run();
+                    }
+                } catch (Throwable e) {
+                    if (failure.compareAndSet(null, e)) {
+                        logger.error("Pipeline stage '{}' failed", stage, e);
+                    }
+                } finally {
+                    finishTask();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            finishTask();
+            throw new ApiException("Pipeline is shut down, cannot run stage: " + stage, e);
+        }
+    }
+
+    private void finishTask() {
+        synchronized (lock) {
+            pending--;
+            if (pending == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // 等待所有任务结束，若有任务失败则抛出第一个异常
+    public void await() {
+        synchronized (lock) {
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ApiException("Interrupted while waiting for pipeline", e);
+                }
+            }
+        }
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new ApiException("Crawl pipeline failed", cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Crawler workers did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
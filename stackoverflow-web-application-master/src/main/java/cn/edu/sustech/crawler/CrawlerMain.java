@@ -3,6 +3,7 @@ package cn.edu.sustech.crawler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
 
@@ -19,18 +20,47 @@ public class CrawlerMain {
 
     private static final Logger logger = LoggerFactory.getLogger(CrawlerMain.class);
 
+    // 用法：
+    //   CrawlerMain                   在线采集
+    //   CrawlerMain --incremental     只采集上次采集之后有活动的问题，并更新已有的行
+    //   CrawlerMain --archive <dir>   在线采集，同时把原始响应归档到 dir
+    //   CrawlerMain --replay <dir>    从 dir 中的归档重建数据库，不访问网络
     public static void main(String[] args) throws SQLException, IOException {
-        // 使用 try-with-resources 自动管理资源
-        try (DatabaseService databaseService = new DatabaseService(
-                SQL_HOST, SQL_PORT, SQL_USER, SQL_PASSWORD, SQL_DATABASE)) {
+        ResponseArchive archive = null;
+        boolean incremental = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--incremental".equals(args[i])) {
+                incremental = true;
+            } else if ("--archive".equals(args[i]) && i + 1 < args.length && archive == null) {
+                archive = ResponseArchive.openForRecording(new File(args[++i]));
+            } else if ("--replay".equals(args[i]) && i + 1 < args.length && archive == null) {
+                archive = ResponseArchive.openForReplay(new File(args[++i]));
+            } else {
+                logger.error("Usage: CrawlerMain [--incremental] [--archive <dir> | --replay <dir>]");
+                System.exit(2);
+            }
+        }
+        boolean incrementalRun = incremental;
+
+        // 使用 try-with-resources 自动管理资源；指标汇总最后关闭，在运行结束或失败时都会输出
+        try (CrawlerMetrics.Reporter metricsReporter = CrawlerMetrics.shared().startReporter(
+                ApiConfig.METRICS_FILE.isEmpty() ? null : new File(ApiConfig.METRICS_FILE),
+                ApiConfig.METRICS_REPORT_INTERVAL_SECONDS);
+             DatabaseService databaseService = new DatabaseService(
+                SQL_HOST, SQL_PORT, SQL_USER, SQL_PASSWORD, SQL_DATABASE);
+             ResponseArchive responseArchive = archive) {
 
-            DataCollector dataCollector = new DataCollector(databaseService, PAGE_SIZE, PAGE_STEP);
+            DataCollector dataCollector = createCollector(databaseService, responseArchive);
             databaseService.createTables();
 
             // 在禁用外键检查的状态下执行数据收集
             databaseService.executeWithoutForeignKeyCheck(() -> {
                 try {
-                    dataCollector.collectData();
+                    if (incrementalRun) {
+                        dataCollector.collectIncremental();
+                    } else {
+                        dataCollector.collectData();
+                    }
                 } catch (Exception e) {
                     throw new RuntimeException("Failed to collect data", e);
                 }
@@ -41,4 +71,17 @@ public class CrawlerMain {
             System.exit(1);
         }
     }
+
+    private static DataCollector createCollector(DatabaseService databaseService, ResponseArchive archive) {
+        if (archive == null) {
+            return new DataCollector(databaseService, PAGE_SIZE, PAGE_STEP);
+        }
+        ApiClient apiClient = new ApiClient(ApiRateLimiter.shared(), archive);
+        // 回放的进度单独保存在归档目录中，不影响在线采集的断点
+        CollectionProgress progress = archive.isReplay()
+                ? CollectionProgress.loadProgress(archive.getDirectory())
+                : CollectionProgress.loadProgress();
+        return new DataCollector(databaseService, new StackOverflowService(apiClient, PAGE_SIZE),
+                progress, PAGE_SIZE, PAGE_STEP);
+    }
 }
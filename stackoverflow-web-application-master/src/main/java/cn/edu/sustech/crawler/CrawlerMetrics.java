@@ -0,0 +1,357 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 采集过程的指标：API 请求延迟、重试、响应字节数和剩余配额，API 抽取耗时，写库批次大小与执行、提交耗时，
+ * 以及各阶段处理的条数。
+ * 记录只做原子累加，可以在任意线程上调用。{@link #startReporter} 定期把指标按 Prometheus 文本格式写到文件
+ * （可由 node_exporter 的 textfile collector 采集），并打印各阶段的速率；关闭时再写一次并打印本次运行的汇总。
+ */
+public class CrawlerMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlerMetrics.class);
+    private static final CrawlerMetrics SHARED = new CrawlerMetrics();
+
+    // 耗时直方图的桶上限（秒）与批次大小直方图的桶上限（行）
+    private static final double[] SECONDS_BUCKETS = {0.0001, 0.0005, 0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+    private static final double[] ROWS_BUCKETS = {1, 10, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final Family<Histogram> apiRequestSeconds = new Family<>("crawler_api_request_seconds",
+            "Latency of a single API request attempt, including streaming decode", "method");
+    private final Family<Counter> apiRetries = new Family<>("crawler_api_retries_total",
+            "API request attempts that were retried", "method", "reason");
+    private final Family<Counter> apiBytes = new Family<>("crawler_api_response_bytes_total",
+            "Decompressed response bytes received from the API", "method");
+    private final AtomicLong quotaRemaining = new AtomicLong(-1);
+    private final Family<Histogram> extractionSeconds = new Family<>("crawler_extraction_seconds",
+            "Java API extraction time per post body");
+    private final Family<Histogram> dbBatchRows = new Family<>("crawler_db_batch_rows",
+            "Rows per database write batch", "table");
+    private final Family<Histogram> dbExecuteSeconds = new Family<>("crawler_db_execute_seconds",
+            "Time spent executing a write batch before commit", "table");
+    private final Family<Histogram> dbCommitSeconds = new Family<>("crawler_db_commit_seconds",
+            "Time spent committing a write batch", "table");
+    private final Family<Counter> stageItems = new Family<>("crawler_stage_items_total",
+            "Items processed by each crawler stage", "stage");
+
+    private final long startNanos = System.nanoTime();
+
+    public static CrawlerMetrics shared() {
+        return SHARED;
+    }
+
+    public void apiRequest(String method, long nanos) {
+        apiRequestSeconds.get(method).record(nanos / 1e9);
+    }
+
+    public void apiRetry(String method, String reason) {
+        apiRetries.get(method, reason).add(1);
+    }
+
+    // 包装响应体，读到的字节数计入该方法
+    public InputStream countBytes(String method, InputStream in) {
+        Counter counter = apiBytes.get(method);
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    counter.add(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    counter.add(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    public void quotaRemaining(int remaining) {
+        if (remaining >= 0) {
+            quotaRemaining.set(remaining);
+        }
+    }
+
+    public void extraction(long nanos) {
+        extractionSeconds.get().record(nanos / 1e9);
+        stageItems.get("extraction").add(1);
+    }
+
+    public void dbBatch(String table, int rows, long executeNanos, long commitNanos) {
+        dbBatchRows.get(table).record(rows);
+        dbExecuteSeconds.get(table).record(executeNanos / 1e9);
+        dbCommitSeconds.get(table).record(commitNanos / 1e9);
+        stageItems.get("write_" + table).add(rows);
+    }
+
+    public void items(String stage, int count) {
+        stageItems.get(stage).add(count);
+    }
+
+    // 从 API 取回的问题、答案与评论总数
+    public long fetchedItems() {
+        return stageItems.snapshot().entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("fetch_"))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    // 每隔 intervalSeconds 写一次指标文件（file 为 null 时不写）并打印速率，关闭 Reporter 时打印汇总
+    public Reporter startReporter(File file, long intervalSeconds) {
+        return new Reporter(file, intervalSeconds);
+    }
+
+    public final class Reporter implements AutoCloseable {
+        private final File file;
+        private final ScheduledExecutorService scheduler;
+        private Map<String, Long> lastItems = new HashMap<>();
+        private long lastNanos = System.nanoTime();
+
+        private Reporter(File file, long intervalSeconds) {
+            this.file = file;
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "crawler-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (intervalSeconds > 0) {
+                scheduler.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+            }
+        }
+
+        private synchronized void report() {
+            try {
+                write();
+                long now = System.nanoTime();
+                double seconds = (now - lastNanos) / 1e9;
+                Map<String, Long> items = stageItems.snapshot();
+                StringBuilder line = new StringBuilder();
+                for (Map.Entry<String, Long> entry : items.entrySet()) {
+                    long delta = entry.getValue() - lastItems.getOrDefault(entry.getKey(), 0L);
+                    line.append(String.format(" %s %d (%.1f/s)", entry.getKey(), entry.getValue(), delta / seconds));
+                }
+                logger.info("Crawl progress:{}, quota remaining {}", line, quotaRemaining.get());
+                lastItems = items;
+                lastNanos = now;
+            } catch (RuntimeException e) {
+                logger.warn("Failed to report crawler metrics", e);
+            }
+        }
+
+        private void write() {
+            if (file == null) {
+                return;
+            }
+            // 先写临时文件再改名，采集方不会读到写了一半的文件
+            File tmp = new File(file.getPath() + ".tmp");
+            try {
+                Files.writeString(tmp.toPath(), exposition(), StandardCharsets.UTF_8);
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("Failed to write crawler metrics to {}", file, e);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            scheduler.shutdownNow();
+            write();
+            logger.info("Crawler metrics summary:\n{}", summary());
+        }
+    }
+
+    // Prometheus 文本格式
+    String exposition() {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        apiRequestSeconds.write(writer);
+        apiRetries.write(writer);
+        apiBytes.write(writer);
+        writer.println("# HELP crawler_api_quota_remaining Remaining daily API quota reported by the last response");
+        writer.println("# TYPE crawler_api_quota_remaining gauge");
+        writer.println("crawler_api_quota_remaining " + quotaRemaining.get());
+        extractionSeconds.write(writer);
+        dbBatchRows.write(writer);
+        dbExecuteSeconds.write(writer);
+        dbCommitSeconds.write(writer);
+        stageItems.write(writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    // 可读的运行汇总：各阶段总数与平均速率，以及各直方图的次数、均值和近似分位数
+    String summary() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder out = new StringBuilder(String.format("  elapsed %.1fs, quota remaining %d%n",
+                seconds, quotaRemaining.get()));
+        stageItems.snapshot().forEach((stage, count) ->
+                out.append(String.format("  %-24s %10d items %10.1f/s%n", stage, count, count / seconds)));
+        apiRetries.snapshot().forEach((labels, count) ->
+                out.append(String.format("  retries %-40s %d%n", labels, count)));
+        apiBytes.snapshot().forEach((labels, count) ->
+                out.append(String.format("  bytes %-42s %d%n", labels, count)));
+        for (Family<Histogram> family : List.of(apiRequestSeconds, extractionSeconds, dbBatchRows,
+                dbExecuteSeconds, dbCommitSeconds)) {
+            family.children.forEach((labels, histogram) -> out.append(String.format(
+                    "  %s%s count %d mean %.4f p50 %s p95 %s p99 %s%n", family.name, labels, histogram.count(),
+                    histogram.mean(), histogram.quantile(0.5), histogram.quantile(0.95), histogram.quantile(0.99))));
+        }
+        return out.toString();
+    }
+
+    // 同名指标按标签值区分的一组子指标
+    private static final class Family<T> {
+        private final String name;
+        private final String help;
+        private final String[] labelNames;
+        private final Map<String, T> children = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, String... labelNames) {
+            this.name = name;
+            this.help = help;
+            this.labelNames = labelNames;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(String... labelValues) {
+            return children.computeIfAbsent(labels(labelValues), k ->
+                    (T) (name.endsWith("_total") ? new Counter() : new Histogram(
+                            name.endsWith("_rows") ? ROWS_BUCKETS : SECONDS_BUCKETS)));
+        }
+
+        private String labels(String... values) {
+            if (values.length == 0) {
+                return "";
+            }
+            StringJoiner joiner = new StringJoiner(",", "{", "}");
+            for (int i = 0; i < values.length; i++) {
+                String value = String.valueOf(values[i]).replace("\\", "\\\\").replace("\"", "\\\"");
+                joiner.add(labelNames[i] + "=\"" + value + "\"");
+            }
+            return joiner.toString();
+        }
+
+        // 计数器的 标签 -> 当前值，供速率与汇总使用；标签只有一个时去掉标签名，便于阅读
+        Map<String, Long> snapshot() {
+            Map<String, Long> values = new TreeMap<>();
+            children.forEach((labels, metric) -> values.put(labelNames.length == 1 && !labels.isEmpty()
+                    ? labels.substring(labelNames[0].length() + 3, labels.length() - 2) : labels,
+                    ((Counter) metric).sum()));
+            return values;
+        }
+
+        void write(PrintWriter writer) {
+            boolean counter = name.endsWith("_total");
+            writer.println("# HELP " + name + " " + help);
+            writer.println("# TYPE " + name + " " + (counter ? "counter" : "histogram"));
+            children.forEach((labels, metric) -> {
+                if (metric instanceof Counter c) {
+                    writer.println(name + labels + " " + c.sum());
+                } else {
+                    ((Histogram) metric).write(writer, name, labels);
+                }
+            });
+        }
+    }
+
+    private static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        void add(long n) {
+            value.add(n);
+        }
+
+        long sum() {
+            return value.sum();
+        }
+    }
+
+    // 固定桶的累积直方图，最后一个桶是 +Inf
+    private static final class Histogram {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(double value) {
+            int i = Arrays.binarySearch(bounds, value);
+            buckets[i >= 0 ? i : -i - 1].increment();
+            sum.add(value);
+        }
+
+        long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        double mean() {
+            long count = count();
+            return count == 0 ? 0 : sum.sum() / count;
+        }
+
+        // 分位数所在桶的上限，落在 +Inf 桶时返回 "+Inf"
+        String quantile(double q) {
+            long count = count();
+            if (count == 0) {
+                return "-";
+            }
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return "<=" + bounds[i];
+                }
+            }
+            return "+Inf";
+        }
+
+        void write(PrintWriter writer, String name, String labels) {
+            String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String le = i < bounds.length ? String.valueOf(bounds[i]) : "+Inf";
+                writer.println(name + "_bucket" + prefix + "le=\"" + le + "\"} " + cumulative);
+            }
+            writer.println(name + "_sum" + labels + " " + sum.sum());
+            writer.println(name + "_count" + labels + " " + cumulative);
+        }
+    }
+}
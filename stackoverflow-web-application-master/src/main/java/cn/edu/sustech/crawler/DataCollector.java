@@ -1,26 +1,44 @@
 package cn.edu.sustech.crawler;
 
+import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class DataCollector {
     private static final Logger logger = LoggerFactory.getLogger(DataCollector.class);
+    // 每次按 ID 批量请求时的最大 ID 数（Stack Exchange API 上限为 100）
+    private static final int BATCH_IDS = 100;
+    // 完整采集截止时间在归档中的名字
+    private static final String CRAWL_TO_PIN = "crawl_to";
 
     private final StackOverflowService stackOverflowService;
     private final DatabaseService databaseService;
     private final CollectionProgress progress;
+    private final CrawlerMetrics metrics = CrawlerMetrics.shared();
 
-    // 存储采集到的数据
+    // 流式模式下每个批次抓取后立即写库，否则缓存到采集结束后统一写库
+    private final boolean streaming;
+
+    // 非流式模式下缓存的采集数据
     private final List<JSONObject> questionList = new ArrayList<>();
     private final List<JSONObject> answerList = new ArrayList<>();
     private final List<JSONObject> commentList = new ArrayList<>();
 
+    // 已采集的 ID，用于去重（多个抓取线程共享，访问时对集合本身加锁）
+    private final IntHashSet seenQuestionIds = new IntHashSet();
+    private final IntHashSet seenAnswerIds = new IntHashSet();
+    private final IntHashSet seenCommentIds = new IntHashSet();
+
+    // 增量采集不写断点：失败后从同一水位线重跑即可
+    private volatile boolean incremental;
+
     // 配置参数
     private final int pageSize;
     private final int pageStep;
@@ -31,21 +49,24 @@ public class DataCollector {
     private Timestamp lastRefreshTime;
 
     public DataCollector(DatabaseService databaseService, int pageSize, int pageStep) {
+        this(databaseService, new StackOverflowService(pageSize), CollectionProgress.loadProgress(), pageSize, pageStep);
+    }
+
+    public DataCollector(DatabaseService databaseService, StackOverflowService stackOverflowService,
+                         CollectionProgress progress, int pageSize, int pageStep) {
         this.databaseService = databaseService;
         this.pageSize = pageSize;
         this.pageStep = pageStep;
-        this.stackOverflowService = new StackOverflowService(pageSize);
-        this.progress = CollectionProgress.loadProgress();
+        this.streaming = ApiConfig.STREAM_TO_DATABASE;
+        this.stackOverflowService = stackOverflowService;
+        this.progress = progress;
         refresh();
     }
 
     public void refresh() {
         try {
-            JSONObject questionStats = stackOverflowService.getQuestionStats();
-            JSONObject noAnswerStats = stackOverflowService.getNoAnswerStats();
-
-            this.totalQuestions = questionStats.getInteger("total");
-            this.noAnswerQuestions = noAnswerStats.getInteger("total");
+            this.totalQuestions = stackOverflowService.getQuestionTotal();
+            this.noAnswerQuestions = stackOverflowService.getNoAnswerTotal();
             this.lastRefreshTime = new Timestamp(System.currentTimeMillis());
 
         } catch (ApiException e) {
@@ -58,16 +79,15 @@ public class DataCollector {
         logger.info("Starting data collection");
         try {
             // 更新总体统计信息
-            JSONObject stats = stackOverflowService.getQuestionStats();
+            int total = stackOverflowService.getQuestionTotal();
             progress.updateStatistics(
-                    stats.getInteger("total"),
-                    stackOverflowService.getNoAnswerStats().getInteger("total"),
-                    calculateTotalPages(stats.getInteger("total"))
+                    total,
+                    stackOverflowService.getNoAnswerTotal(),
+                    calculateTotalPages(total)
             );
 
-            // 根据状态选择开始方式
-            if (progress.getState() == CollectionState.NOT_STARTED ||
-                    progress.getState() == CollectionState.FAILED) {
+            // 根据状态选择开始方式，失败的运行同样从断点续传
+            if (progress.getState() == CollectionState.NOT_STARTED) {
                 startNewCollection();
             } else {
                 resumeCollection();
@@ -80,36 +100,132 @@ public class DataCollector {
         }
     }
 
+    // 增量采集：只抓取上次水位线之后有活动的问题及其答案和评论，已存在的行按变化更新。
+    // 与完整采集一样按 creation_date 窗口分片，计数只统计水位线之后有活动的问题，
+    // 每个窗口留出一页余量，采集期间新活动的问题插到前面时，末尾的问题也不会被挤出页数上限
+    public void collectIncremental() {
+        Timestamp watermark;
+        try {
+            watermark = databaseService.getLastUpdateTime();
+        } catch (SQLException e) {
+            throw new ApiException("Failed to read last update time", e);
+        }
+        if (watermark == null) {
+            logger.info("No previous collection found, running a full collection");
+            collectData();
+            return;
+        }
+
+        // 每次记录都从库中的水位线开始、取当前时间为截止时间，截止时间按水位线命名固定在归档中。
+        // 回放时水位线同样来自库：完整采集与之前的增量采集都把固定的截止时间写作水位线，
+        // 回放出的库与记录时的库水位线相同，于是能找回这一次的截止时间
+        long since = watermark.getTime() / 1000;
+        String crawlToPin = "incremental_to@" + since;
+        stackOverflowService.unpin(crawlToPin);
+        long crawlTo = stackOverflowService.pin(crawlToPin, () -> System.currentTimeMillis() / 1000);
+        logger.info("Starting incremental collection of questions active since {}", new Timestamp(since * 1000));
+        ShardPlanner planner = new ShardPlanner(
+                (tag, from, to) -> stackOverflowService.countActiveQuestions(tag, from, to, since),
+                Math.max(1, ApiConfig.MAX_WINDOW_PAGES - 1) * pageSize);
+        incremental = true;
+        try {
+            runPipeline(pipeline -> {
+                for (String tag : ApiConfig.CRAWL_TAGS) {
+                    planner.plan(pipeline, tag, ApiConfig.CRAWL_FROM_DATE, crawlTo, window -> {
+                        // 大部分旧窗口没有新活动，不必请求
+                        if (window.total() > 0) {
+                            pipeline.submit("questions", () -> fetchActiveWindowPage(pipeline, window, since, 1));
+                        }
+                    });
+                }
+            });
+            if (!streaming) {
+                databaseService.batchInsertQuestionRecord(questionList);
+                databaseService.batchInsertAnswerRecord(answerList);
+                databaseService.batchInsertCommentRecord(commentList);
+            }
+            databaseService.finishLoad();
+            // 截止时间之后创建或有活动的问题留给下一次增量采集
+            databaseService.insertUpdateTime(new Timestamp(crawlTo * 1000));
+        } catch (SQLException e) {
+            throw new ApiException("Failed to save incremental collection", e);
+        } finally {
+            incremental = false;
+        }
+        logger.info("Incremental collection completed, questions: {}, answers: {}, comments: {}",
+                seenQuestionIds.size(), seenAnswerIds.size(), seenCommentIds.size());
+    }
+
+    // 窗口内沿 has_more 逐页抓取；每页的答案与评论任务仍与后续分页并发执行
+    private void fetchActiveWindowPage(CrawlPipeline pipeline, ShardPlanner.Window window, long since, int page) {
+        List<JSONObject> questions = new ArrayList<>();
+        List<Integer> newQuestionIds = new ArrayList<>();
+        boolean hasMore;
+        try {
+            hasMore = stackOverflowService.getActiveQuestions(window, since, page, question -> {
+                int questionId = question.getInteger("question_id");
+                if (ownedBy(question, window.tag()) && markSeen(seenQuestionIds, questionId)) {
+                    questions.add(question);
+                    newQuestionIds.add(questionId);
+                }
+            });
+            persistQuestions(questions);
+            metrics.items("fetch_questions", questions.size());
+        } catch (Exception e) {
+            logger.error("Error collecting active questions of {} at page {}", window, page, e);
+            throw e;
+        }
+        logger.info("Collected page {} of active questions in {}, {} questions so far",
+                page, window, seenQuestionIds.size());
+
+        submitQuestionDownstream(pipeline, newQuestionIds);
+        if (hasMore && page >= ApiConfig.MAX_WINDOW_PAGES) {
+            logger.warn("{} grew beyond {} pages, remaining questions are skipped",
+                    window, ApiConfig.MAX_WINDOW_PAGES);
+        } else if (hasMore) {
+            pipeline.submit("questions", () -> fetchActiveWindowPage(pipeline, window, since, page + 1));
+        }
+    }
+
     private void startNewCollection() {
         logger.info("Starting new collection");
+        // 新的采集规划到当前时间为止，上一次采集固定在归档中的截止时间不再适用；续传不经过这里，沿用原值
+        stackOverflowService.unpin(CRAWL_TO_PIN);
         progress.setState(CollectionState.COLLECTING_QUESTIONS);
         collectQuestions();
-        collectAnswers();
-        collectComments();
         saveToDatabase();
     }
 
     private void resumeCollection() {
         logger.info("Resuming collection from state: {}", progress.getState());
         CollectionState currentState = progress.getState();
+        if (currentState == CollectionState.COMPLETED) {
+            // 上一次采集已完成：清空进度重新做一次完整采集，否则回填的去重集合会让所有数据都被跳过
+            logger.info("Previous collection completed, discarding its progress and starting a new one");
+            progress.reset();
+            startNewCollection();
+            return;
+        }
+        if (!streaming) {
+            // 非流式模式下已采集的数据只在上一个进程的内存中，进度里的 ID 对应的行从未写库，只能重新采集
+            logger.warn("Buffered data of the interrupted run was lost, discarding progress and starting over");
+            progress.reset();
+            startNewCollection();
+            return;
+        }
+        rehydrate();
 
         switch (currentState) {
             case COLLECTING_QUESTIONS:
+            case FAILED:
                 collectQuestions();
-                collectAnswers();
-                collectComments();
                 saveToDatabase();
                 break;
 
             case COLLECTING_ANSWERS:
-                collectAnswers();
-                collectComments();
-                saveToDatabase();
-                break;
-
             case COLLECTING_QUESTION_COMMENTS:
             case COLLECTING_ANSWER_COMMENTS:
-                collectComments();
+                collectPending();
                 saveToDatabase();
                 break;
 
@@ -123,115 +239,275 @@ public class DataCollector {
         }
     }
 
+    // 流式模式下进度只在对应的行写库之后才记录，因此进度中的 ID 都已在库中：
+    // 把它们放回去重集合，续传时重新请求到的旧数据不会再次写库或派发下游任务
+    private void rehydrate() {
+        List<Integer> questionIds = progress.listQuestionIds();
+        List<Integer> answerIds = progress.listAnswerIds();
+        List<Integer> commentIds = progress.listCommentIds();
+        synchronized (seenQuestionIds) {
+            questionIds.forEach(seenQuestionIds::add);
+        }
+        synchronized (seenAnswerIds) {
+            answerIds.forEach(seenAnswerIds::add);
+        }
+        synchronized (seenCommentIds) {
+            commentIds.forEach(seenCommentIds::add);
+        }
+        logger.info("Rehydrated {} questions, {} answers and {} comments from progress",
+                questionIds.size(), answerIds.size(), commentIds.size());
+    }
+
+    // 在流水线中运行一组种子任务，并等待它们及其派生任务全部完成
+    private void runPipeline(Consumer<CrawlPipeline> seed) {
+        try (CrawlPipeline pipeline = new CrawlPipeline(ApiConfig.CRAWLER_THREADS)) {
+            seed.accept(pipeline);
+            pipeline.await();
+        }
+    }
+
+    // 按 creation_date 窗口分片抓取问题：规划与抓取在同一条流水线中进行，每个窗口一条分页链，窗口之间并行，
+    // 每页问题到达后立即派发其答案和评论任务。续传时未完成的窗口从断点继续，只对尚未规划的时间段重新规划
     private void collectQuestions() {
         progress.setState(CollectionState.COLLECTING_QUESTIONS);
-        int pageTotal = totalQuestions / pageSize;
-        int startPage = progress.getLastProcessedPage() + 1;
-
-        for (int page = startPage; page <= pageTotal; page += pageStep) {
-            logger.info("Collecting questions - Progress: {}%", (int) (100.0 * page / pageTotal));
-            try {
-                List<JSONObject> questions = stackOverflowService.getQuestions(page);
-                for (JSONObject question : questions) {
-                    int questionId = question.getInteger("question_id");
-                    if (!questionList.contains(question)) {
-                        questionList.add(question);
-                        progress.recordQuestionProgress(questionId, question);
-                    }
+        // 截止时间决定了规划出的窗口和计数请求的参数，归档记录与回放时固定在归档中
+        long crawlTo = stackOverflowService.pin(CRAWL_TO_PIN, () -> System.currentTimeMillis() / 1000);
+        ShardPlanner planner = new ShardPlanner(stackOverflowService::countQuestions,
+                ApiConfig.MAX_WINDOW_PAGES * pageSize);
+        List<CollectionProgress.WindowStatus> windows = progress.listWindows();
+        runPipeline(pipeline -> {
+            submitPendingWork(pipeline);
+            for (CollectionProgress.WindowStatus status : windows) {
+                if (!status.done()) {
+                    ShardPlanner.Window window = status.window();
+                    submitWindowPage(pipeline, window,
+                            status.lastPage() == 0 ? firstPage(window) : status.lastPage() + pageStep);
+                }
+            }
+            for (String tag : ApiConfig.CRAWL_TAGS) {
+                List<ShardPlanner.Window> covered = windows.stream()
+                        .map(CollectionProgress.WindowStatus::window)
+                        .filter(window -> window.tag().equals(tag))
+                        .toList();
+                for (long[] gap : ShardPlanner.gaps(ApiConfig.CRAWL_FROM_DATE, crawlTo, covered)) {
+                    planner.plan(pipeline, tag, gap[0], gap[1], window -> {
+                        progress.recordWindow(window);
+                        submitWindowPage(pipeline, window, firstPage(window));
+                    });
                 }
-                progress.setLastProcessedPage(page);
-            } catch (Exception e) {
-                logger.error("Error collecting questions at page {}", page, e);
-                throw e;
             }
+        });
+        logger.info("Questions collection completed, windows: {}, questions: {}, answers: {}, comments: {}",
+                progress.listWindows().size(), seenQuestionIds.size(), seenAnswerIds.size(), seenCommentIds.size());
+    }
+
+    // pageStep > 1 时按步长抽样：窗口内只抓取第 first、first + pageStep ... 页，
+    // first 由窗口起点决定，续传后不变，各窗口的起始页错开
+    private int firstPage(ShardPlanner.Window window) {
+        return 1 + (int) Math.floorMod(window.from(), (long) pageStep);
+    }
+
+    private void submitWindowPage(CrawlPipeline pipeline, ShardPlanner.Window window, int page) {
+        // 抽样时按规划时的问题数判断是否还有要抓的页；不抽样时至少请求第一页，之后跟随 has_more
+        if (pageStep > 1 && page > window.pages(pageSize)) {
+            progress.recordWindowPage(window, Math.max(0, page - pageStep), true);
+            return;
         }
-        logger.info("Questions collection completed, total questions: {}", questionList.size());
+        pipeline.submit("questions", () -> fetchWindowPage(pipeline, window, page));
     }
 
-    private void collectAnswers() {
-        progress.setState(CollectionState.COLLECTING_ANSWERS);
-        List<Integer> questionIds = new ArrayList<>();
+    private void fetchWindowPage(CrawlPipeline pipeline, ShardPlanner.Window window, int page) {
+        List<JSONObject> questions = new ArrayList<>();
+        List<Integer> newQuestionIds = new ArrayList<>();
+        boolean hasMore;
+        try {
+            hasMore = stackOverflowService.getQuestions(window, page, question -> {
+                int questionId = question.getInteger("question_id");
+                if (ownedBy(question, window.tag()) && markSeen(seenQuestionIds, questionId)) {
+                    questions.add(question);
+                    newQuestionIds.add(questionId);
+                }
+            });
+            persistQuestions(questions);
+            metrics.items("fetch_questions", questions.size());
+            newQuestionIds.forEach(progress::recordQuestionProgress);
+        } catch (Exception e) {
+            logger.error("Error collecting questions of {} at page {}", window, page, e);
+            throw e;
+        }
 
-        for (JSONObject question : questionList) {
-            int questionId = question.getInteger("question_id");
-            questionIds.add(questionId);
+        submitQuestionDownstream(pipeline, newQuestionIds);
+        int next = page + pageStep;
+        if (hasMore && next > ApiConfig.MAX_WINDOW_PAGES) {
+            // 规划之后窗口内的问题变多了（例如补打了标签），超出页数上限的部分这次拿不到
+            logger.warn("{} grew beyond {} pages, remaining questions are skipped", window, ApiConfig.MAX_WINDOW_PAGES);
+        }
+        boolean done = !hasMore || next > ApiConfig.MAX_WINDOW_PAGES
+                || (pageStep > 1 && next > window.pages(pageSize));
+        progress.recordWindowPage(window, page, done);
+        if (!done) {
+            pipeline.submit("questions", () -> fetchWindowPage(pipeline, window, next));
+        }
+    }
 
-            if (questionIds.size() == 100) {
-                logger.info("Collecting answers for question: {}, progress: {}%", question.getInteger("question_id"),
-                        (100.0 * questionList.indexOf(question) / questionList.size()));
-                processAnswerBatch(questionIds);
-                questionIds.clear();
+    // 带有多个采集标签的问题只归 CRAWL_TAGS 中它带有的第一个标签所有。各标签的分页链并行执行，
+    // 若先到先得，问题进入哪个批次取决于线程调度，下游请求的 ID 列表每次运行都不同，归档也就无法回放；
+    // 同一标签的窗口互不重叠，因此每个问题只会由一条分页链上固定的一页派发
+    private static boolean ownedBy(JSONObject question, String tag) {
+        JSONArray tags = question.getJSONArray("tags");
+        if (tags == null) {
+            return true;
+        }
+        for (String crawlTag : ApiConfig.CRAWL_TAGS) {
+            if (tags.contains(crawlTag)) {
+                return crawlTag.equals(tag);
             }
         }
+        return true;
+    }
+
+    private void submitQuestionDownstream(CrawlPipeline pipeline, List<Integer> questionIds) {
+        for (int i = 0; i < questionIds.size(); i += BATCH_IDS) {
+            List<Integer> batch = questionIds.subList(i, Math.min(i + BATCH_IDS, questionIds.size()));
+            pipeline.submit("answers", () -> processAnswerBatch(pipeline, batch));
+            pipeline.submit("question-comments", () -> processCommentBatch("question", batch));
+        }
+    }
+
+    private void submitAnswerDownstream(CrawlPipeline pipeline, List<Integer> answerIds) {
+        for (int i = 0; i < answerIds.size(); i += BATCH_IDS) {
+            List<Integer> batch = answerIds.subList(i, Math.min(i + BATCH_IDS, answerIds.size()));
+            pipeline.submit("answer-comments", () -> processCommentBatch("answer", batch));
+        }
+    }
+
+    // 断点续传：只对答案或评论尚未采完的问题与答案重新派发任务
+    private void collectPending() {
+        progress.setState(CollectionState.COLLECTING_ANSWERS);
+        runPipeline(this::submitPendingWork);
+        logger.info("Pending work completed, total answers: {}, comments: {}",
+                seenAnswerIds.size(), seenCommentIds.size());
+    }
 
-        if (!questionIds.isEmpty()) {
-            processAnswerBatch(questionIds);
+    private void submitPendingWork(CrawlPipeline pipeline) {
+        List<Integer> answerQuestionIds = progress.listPendingAnswerQuestionIds();
+        List<Integer> commentQuestionIds = progress.listPendingCommentQuestionIds();
+        List<Integer> commentAnswerIds = progress.listPendingCommentAnswerIds();
+        if (answerQuestionIds.isEmpty() && commentQuestionIds.isEmpty() && commentAnswerIds.isEmpty()) {
+            return;
+        }
+        logger.info("Resuming answers of {} questions, comments of {} questions and {} answers",
+                answerQuestionIds.size(), commentQuestionIds.size(), commentAnswerIds.size());
+        for (int i = 0; i < answerQuestionIds.size(); i += BATCH_IDS) {
+            List<Integer> batch = answerQuestionIds.subList(i, Math.min(i + BATCH_IDS, answerQuestionIds.size()));
+            pipeline.submit("answers", () -> processAnswerBatch(pipeline, batch));
+        }
+        for (int i = 0; i < commentQuestionIds.size(); i += BATCH_IDS) {
+            List<Integer> batch = commentQuestionIds.subList(i, Math.min(i + BATCH_IDS, commentQuestionIds.size()));
+            pipeline.submit("question-comments", () -> processCommentBatch("question", batch));
         }
-        logger.info("Answers collection completed, total answers: {}", answerList.size());
+        submitAnswerDownstream(pipeline, commentAnswerIds);
     }
 
-    private void processAnswerBatch(List<Integer> questionIds) {
+    private void processAnswerBatch(CrawlPipeline pipeline, List<Integer> questionIds) {
+        List<JSONObject> answers = new ArrayList<>();
+        List<Integer> newAnswerIds = new ArrayList<>();
         try {
-            List<JSONObject> answers = stackOverflowService.getAnswers(questionIds);
+            stackOverflowService.getAnswers(questionIds, answer -> {
+                if (markSeen(seenAnswerIds, answer.getInteger("answer_id"))) {
+                    answers.add(answer);
+                }
+            });
+            persistAnswers(answers);
+            metrics.items("fetch_answers", answers.size());
             for (JSONObject answer : answers) {
                 int answerId = answer.getInteger("answer_id");
-                int questionId = answer.getInteger("question_id");
-                if (!answerList.contains(answer)) {
-                    answerList.add(answer);
-                    progress.recordAnswerProgress(questionId, answerId, answer);
+                if (!incremental) {
+                    progress.recordAnswerProgress(answer.getInteger("question_id"), answerId);
                 }
+                newAnswerIds.add(answerId);
+            }
+            if (!incremental) {
+                progress.markAnswersCollected(questionIds);
             }
         } catch (Exception e) {
             logger.error("Error collecting answers for questions: {}", questionIds, e);
             throw e;
         }
+        submitAnswerDownstream(pipeline, newAnswerIds);
     }
 
-    private void collectComments() {
-        // Collect question comments
-        progress.setState(CollectionState.COLLECTING_QUESTION_COMMENTS);
-        List<Integer> questionIds = questionList.stream()
-                .map(q -> q.getInteger("question_id"))
-                .collect(Collectors.toList());
-
-        for (int i = 0; i < questionIds.size(); i += 100) {
-            List<Integer> batch = questionIds.subList(i, Math.min(i + 100, questionIds.size()));
-            List<JSONObject> comments = stackOverflowService.getComments("question", batch);
-            for (JSONObject comment : comments) {
-                if (!commentList.contains(comment)) {
-                    commentList.add(comment);
-                    progress.recordCommentProgress(
-                            comment.getInteger("post_id"),
-                            true,
-                            comment
-                    );
+    private void processCommentBatch(String type, List<Integer> postIds) {
+        boolean isQuestion = type.equals("question");
+        List<JSONObject> comments = new ArrayList<>();
+        try {
+            stackOverflowService.getComments(type, postIds, comment -> {
+                if (markSeen(seenCommentIds, comment.getInteger("comment_id"))) {
+                    comments.add(comment);
                 }
-            }
-            logger.info("Collecting question comments - Progress: {}%",  (100.0 * i / questionIds.size()));
-        }
-
-        // Collect answer comments
-        progress.setState(CollectionState.COLLECTING_ANSWER_COMMENTS);
-        List<Integer> answerIds = answerList.stream()
-                .map(a -> a.getInteger("answer_id"))
-                .collect(Collectors.toList());
-
-        for (int i = 0; i < answerIds.size(); i += 100) {
-            List<Integer> batch = answerIds.subList(i, Math.min(i + 100, answerIds.size()));
-            List<JSONObject> comments = stackOverflowService.getComments("answer", batch);
-            for (JSONObject comment : comments) {
-                if (!commentList.contains(comment)) {
-                    commentList.add(comment);
-                    progress.recordCommentProgress(
-                            comment.getInteger("post_id"),
-                            false,
-                            comment
-                    );
+            });
+            persistComments(comments);
+            metrics.items("fetch_comments", comments.size());
+            if (!incremental) {
+                for (JSONObject comment : comments) {
+                    progress.recordCommentProgress(comment.getInteger("post_id"), isQuestion,
+                            comment.getInteger("comment_id"));
                 }
+                progress.markCommentsCollected(isQuestion, postIds);
             }
-            logger.info("Collecting answer comments - Progress: {}%",  (100.0 * i / questionIds.size()));
+        } catch (Exception e) {
+            logger.error("Error collecting {} comments for posts: {}", type, postIds, e);
+            throw e;
+        }
+    }
+
+    private static boolean markSeen(IntHashSet seen, int id) {
+        synchronized (seen) {
+            return seen.add(id);
+        }
+    }
+
+    // 流式模式下批次直接写库，进度在写库成功后才记录；否则暂存到列表中
+    private void persistQuestions(List<JSONObject> questions) {
+        if (!streaming) {
+            synchronized (questionList) {
+                questionList.addAll(questions);
+            }
+            return;
+        }
+        try {
+            databaseService.batchInsertQuestionRecord(questions);
+        } catch (SQLException e) {
+            throw new ApiException("Failed to save question batch", e);
+        }
+    }
+
+    private void persistAnswers(List<JSONObject> answers) {
+        if (!streaming) {
+            synchronized (answerList) {
+                answerList.addAll(answers);
+            }
+            return;
+        }
+        try {
+            databaseService.batchInsertAnswerRecord(answers);
+        } catch (SQLException e) {
+            throw new ApiException("Failed to save answer batch", e);
+        }
+    }
+
+    private void persistComments(List<JSONObject> comments) {
+        if (!streaming) {
+            synchronized (commentList) {
+                commentList.addAll(comments);
+            }
+            return;
+        }
+        try {
+            databaseService.batchInsertCommentRecord(comments);
+        } catch (SQLException e) {
+            throw new ApiException("Failed to save comment batch", e);
         }
-        logger.info("Comments collection completed, total comments: {}", commentList.size());
     }
 
     private void saveToDatabase() {
@@ -239,7 +515,17 @@ public class DataCollector {
         logger.info("Saving data to database");
 
         try {
-            databaseService.saveToDatabase(questionList, answerList, commentList);
+            // 有归档时以固定的截止时间作为水位线，回放出的库与记录时一致；截止时间之后创建的问题由增量采集补上。
+            // 没有归档时取当前时间
+            Timestamp updateTime = new Timestamp(
+                    stackOverflowService.pin(CRAWL_TO_PIN, () -> System.currentTimeMillis() / 1000) * 1000);
+            if (streaming) {
+                // 数据已经按批次写入，只需记录更新时间
+                databaseService.finishLoad();
+                databaseService.insertUpdateTime(updateTime);
+            } else {
+                databaseService.saveToDatabase(questionList, answerList, commentList, updateTime);
+            }
             progress.setState(CollectionState.COMPLETED);
             logger.info("Data collection completed successfully");
         } catch (Exception e) {
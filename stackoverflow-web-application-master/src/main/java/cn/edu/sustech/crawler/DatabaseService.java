@@ -7,35 +7,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.*;
 
 public class DatabaseService implements AutoCloseable {
     private static final int BATCH_SIZE = 1000;
     private final Logger logger = LoggerFactory.getLogger(DatabaseService.class);
-    private final StanfordCoreNLPService stanfordCoreNLPService;
+    private final JavaApiExtractor apiExtractor;
     private HikariDataSource dataSource;
+    // bulk_load 开启时问题、答案、评论经 COPY 暂存表批量合并，否则逐行批量 upsert
+    private final PgBulkLoader bulkLoader;
+    // 逐行写入模式下的 API 抽取阶段
+    private final ApiExtractionStage apiExtraction;
+    // 已写入的 owner、tag、api，用于过滤重复的维度行
+    private final DimensionCache dimensions = new DimensionCache(ApiConfig.DIMENSION_CACHE_SIZE);
 
-    // 预编译SQL语句的缓存
-    private PreparedStatement questionStmt;
-    private PreparedStatement answerStmt;
-    private PreparedStatement commentStmt;
-    private PreparedStatement ownerStmt;
-    private PreparedStatement tagStmt;
-    private PreparedStatement apiStmt;
-    private PreparedStatement tagQuestionStmt;
-    private PreparedStatement apiQuestionStmt;
-    private PreparedStatement apiAnswerStmt;
-    private PreparedStatement apiCommentStmt;
-
-    // 批处理计数器
-    private int questionBatchCount = 0;
-    private int answerBatchCount = 0;
-    private int commentBatchCount = 0;
+    // 并行写库时同时使用的连接数（连接池共 10 个连接，给采集流程留出余量）
+    private static final int WRITER_THREADS = 6;
 
     public DatabaseService(String host, int port, String user, String password, String database) {
         setupConnectionPool(host, port, user, password, database);
-        stanfordCoreNLPService = new StanfordCoreNLPService();
+        apiExtractor = JavaApiExtractor.fromConfig();
+        apiExtraction = new ApiExtractionStage(dataSource, apiExtractor, dimensions, ApiConfig.EXTRACTION_THREADS);
+        bulkLoader = ApiConfig.BULK_LOAD ? new PgBulkLoader(dataSource, apiExtraction, dimensions) : null;
     }
 
     private void setupConnectionPool(String host, int port, String user, String password, String database) {
@@ -56,268 +51,146 @@ public class DatabaseService implements AutoCloseable {
         dataSource = new HikariDataSource(config);
     }
 
-    private void prepareStatements(Connection conn) throws SQLException {
-        questionStmt = conn.prepareStatement(
-                "INSERT INTO question VALUES (?,?,?,?,?,?,?,?,?,?,?,?) ON CONFLICT DO NOTHING"
-        );
-        answerStmt = conn.prepareStatement(
-                "INSERT INTO answer VALUES (?,?,?,?,?,?,?,?,?,?) ON CONFLICT DO NOTHING"
-        );
-        commentStmt = conn.prepareStatement(
-                "INSERT INTO comment VALUES (?,?,?,?,?,?,?,?) ON CONFLICT DO NOTHING"
-        );
-        ownerStmt = conn.prepareStatement(
-                "INSERT INTO owner VALUES (?,?,?,?,?,?,?) ON CONFLICT DO NOTHING"
-        );
-        tagStmt = conn.prepareStatement(
-                "INSERT INTO tag VALUES (?) ON CONFLICT DO NOTHING"
-        );
-        apiStmt = conn.prepareStatement(
-                "INSERT INTO api VALUES (?) ON CONFLICT DO NOTHING"
-        );
-        tagQuestionStmt = conn.prepareStatement(
-                "INSERT INTO connection_tag_and_question VALUES (?,?) ON CONFLICT DO NOTHING"
-        );
-        apiQuestionStmt = conn.prepareStatement(
-                "INSERT INTO connection_question_and_api VALUES (?,?,?) ON CONFLICT DO NOTHING"
-        );
-        apiAnswerStmt = conn.prepareStatement(
-                "INSERT INTO connection_answer_and_api VALUES (?,?,?) ON CONFLICT DO NOTHING"
-        );
-        apiCommentStmt = conn.prepareStatement(
-                "INSERT INTO connection_comment_and_api VALUES (?,?,?) ON CONFLICT DO NOTHING"
-        );
-    }
-
+    // 已存在的行只在内容确实变化时才更新，避免无意义的行版本和 WAL（批量合并时同样使用）
+    static final String QUESTION_CONFLICT = """
+            ON CONFLICT (question_id) DO UPDATE SET
+                score = excluded.score, link = excluded.link, answer_count = excluded.answer_count,
+                view_count = excluded.view_count, content_license = excluded.content_license,
+                title = excluded.title, last_activity_date = excluded.last_activity_date,
+                last_edit_date = excluded.last_edit_date, account_id = excluded.account_id, body = excluded.body
+            WHERE (question.score, question.answer_count, question.view_count, question.last_activity_date,
+                   question.last_edit_date, question.title, question.body, question.content_license,
+                   question.account_id, question.link)
+                IS DISTINCT FROM (excluded.score, excluded.answer_count, excluded.view_count,
+                   excluded.last_activity_date, excluded.last_edit_date, excluded.title, excluded.body,
+                   excluded.content_license, excluded.account_id, excluded.link)
+            """;
+    static final String ANSWER_CONFLICT = """
+            ON CONFLICT (answer_id) DO UPDATE SET
+                last_activity_date = excluded.last_activity_date, last_edit_date = excluded.last_edit_date,
+                score = excluded.score, is_accepted = excluded.is_accepted,
+                content_license = excluded.content_license, body = excluded.body, account_id = excluded.account_id
+            WHERE (answer.last_activity_date, answer.last_edit_date, answer.score, answer.is_accepted,
+                   answer.content_license, answer.body, answer.account_id)
+                IS DISTINCT FROM (excluded.last_activity_date, excluded.last_edit_date, excluded.score,
+                   excluded.is_accepted, excluded.content_license, excluded.body, excluded.account_id)
+            """;
+    static final String COMMENT_CONFLICT = """
+            ON CONFLICT (comment_id) DO UPDATE SET
+                edited = excluded.edited, body = excluded.body, score = excluded.score,
+                content_license = excluded.content_license
+            WHERE (comment.edited, comment.body, comment.score, comment.content_license)
+                IS DISTINCT FROM (excluded.edited, excluded.body, excluded.score, excluded.content_license)
+            """;
+    static final String OWNER_CONFLICT = """
+            ON CONFLICT (account_id) DO UPDATE SET
+                user_id = excluded.user_id, profile_image = excluded.profile_image, link = excluded.link,
+                user_type = excluded.user_type, display_name = excluded.display_name,
+                reputation = excluded.reputation
+            WHERE (owner.user_id, owner.profile_image, owner.link, owner.user_type, owner.display_name,
+                   owner.reputation)
+                IS DISTINCT FROM (excluded.user_id, excluded.profile_image, excluded.link, excluded.user_type,
+                   excluded.display_name, excluded.reputation)
+            """;
+
+    static final String UPSERT_QUESTION =
+            "INSERT INTO question VALUES (?,?,?,?,?,?,?,?,?,?,?,?)\n" + QUESTION_CONFLICT;
+    static final String UPSERT_ANSWER =
+            "INSERT INTO answer VALUES (?,?,?,?,?,?,?,?,?,?)\n" + ANSWER_CONFLICT;
+    static final String UPSERT_COMMENT =
+            "INSERT INTO comment VALUES (?,?,?,?,?,?,?,?)\n" + COMMENT_CONFLICT;
+    static final String UPSERT_OWNER =
+            "INSERT INTO owner VALUES (?,?,?,?,?,?,?)\n" + OWNER_CONFLICT;
+
+    // 每次调用使用独立的连接和语句，可以在多个线程上并发调用
     public void batchInsertQuestionRecord(List<JSONObject> questions) throws SQLException {
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
-            prepareStatements(conn);
-
-            for (JSONObject question : questions) {
-                // 插入问题相关数据
-                User owner = getUser(question);
-                addQuestionBatch(question, owner);
-                addOwnerBatch(owner);
-
-                // 处理标签
-                for (Object tag : question.getJSONArray("tags")) {
-                    addTagBatch((String) tag);
-                    addTagQuestionBatch((String) tag, question.getInteger("question_id"));
-                }
-
-                // 处理API
-                Map<String, Integer> apiCount = stanfordCoreNLPService.getAllJavaAPI(question.getString("body"));
-                for (Map.Entry<String, Integer> entry : apiCount.entrySet()) {
-                    addApiBatch(entry.getKey());
-                    addApiQuestionBatch(question.getInteger("question_id"), entry.getKey(), entry.getValue());
-                }
-
-                questionBatchCount++;
-                if (questionBatchCount >= BATCH_SIZE) {
-                    executeBatch(conn);
-                }
-            }
-
-            // 执行剩余的批处理
-            executeBatch(conn);
-            conn.commit();
+        if (bulkLoader != null) {
+            bulkLoader.loadQuestions(questions);
+            return;
+        }
+        try (BatchWriter writer = newWriter()) {
+            writer.writeQuestions(questions);
         }
     }
 
-    private void addQuestionBatch(JSONObject question, User owner) throws SQLException {
-        questionStmt.setInt(1, question.getInteger("question_id"));
-        questionStmt.setInt(2, question.getInteger("score"));
-        questionStmt.setString(3, question.getString("link"));
-        questionStmt.setInt(4, question.getInteger("answer_count"));
-        questionStmt.setInt(5, question.getInteger("view_count"));
-        questionStmt.setString(6, question.getString("content_license"));
-        questionStmt.setString(7, question.getString("title"));
-        questionStmt.setTimestamp(8, convertDate(question.getInteger("last_activity_date")));
-        questionStmt.setTimestamp(9, convertDate(question.getInteger("last_edit_date")));
-        questionStmt.setTimestamp(10, convertDate(question.getInteger("creation_date")));
-        questionStmt.setInt(11, owner.getAccountId());
-        questionStmt.setString(12, question.getString("body"));
-        questionStmt.addBatch();
+    public void batchInsertAnswerRecord(List<JSONObject> answers) throws SQLException {
+        if (bulkLoader != null) {
+            bulkLoader.loadAnswers(answers);
+            return;
+        }
+        try (BatchWriter writer = newWriter()) {
+            writer.writeAnswers(answers);
+        }
     }
 
-    private void executeBatch(Connection conn) throws SQLException {
-        questionStmt.executeBatch();
-        ownerStmt.executeBatch();
-        tagStmt.executeBatch();
-        apiStmt.executeBatch();
-        tagQuestionStmt.executeBatch();
-        apiQuestionStmt.executeBatch();
-
-        questionBatchCount = 0;
-        conn.commit();
+    public void batchInsertCommentRecord(List<JSONObject> comments) throws SQLException {
+        if (bulkLoader != null) {
+            bulkLoader.loadComments(comments);
+            return;
+        }
+        try (BatchWriter writer = newWriter()) {
+            writer.writeComments(comments);
+        }
     }
 
-    public void saveToDatabase(List<JSONObject> questions, List<JSONObject> answers, List<JSONObject> comments) {
+    private BatchWriter newWriter() throws SQLException {
+        Connection conn = dataSource.getConnection();
         try {
-            batchInsertQuestionRecord(questions);
-            batchInsertAnswerRecord(answers);
-            batchInsertCommentRecord(comments);
-            insertUpdateTime();
-            logger.info("Data successfully saved to database");
+            return new BatchWriter(conn, apiExtraction, dimensions, BATCH_SIZE);
         } catch (SQLException e) {
-            logger.error("Failed to save data to database", e);
-            throw new RuntimeException("Database operation failed", e);
+            conn.close();
+            throw e;
         }
     }
-    private void addOwnerBatch(User owner) throws SQLException {
-        ownerStmt.setInt(1, owner.getAccountId());
-        ownerStmt.setInt(2, owner.getUserId());
-        ownerStmt.setString(3, owner.getProfileImage());
-        ownerStmt.setString(4, owner.getLink());
-        ownerStmt.setString(5, owner.getUserType());
-        ownerStmt.setString(6, owner.getAccountId() == -1 ? "does_not_exist" : owner.getDisplayName());
-        ownerStmt.setInt(7, owner.getReputation());
-        ownerStmt.addBatch();
-    }
 
-    private void addTagBatch(String tagName) throws SQLException {
-        tagStmt.setString(1, tagName);
-        tagStmt.addBatch();
-    }
-
-    private void addApiBatch(String apiName) throws SQLException {
-        apiStmt.setString(1, apiName);
-        apiStmt.addBatch();
-    }
-
-    private void addTagQuestionBatch(String tagName, int questionId) throws SQLException {
-        tagQuestionStmt.setString(1, tagName);
-        tagQuestionStmt.setInt(2, questionId);
-        tagQuestionStmt.addBatch();
-    }
-
-    private void addApiQuestionBatch(int questionId, String apiName, int count) throws SQLException {
-        apiQuestionStmt.setInt(1, questionId);
-        apiQuestionStmt.setString(2, apiName);
-        apiQuestionStmt.setInt(3, count);
-        apiQuestionStmt.addBatch();
-    }
-
-    private void addApiAnswerBatch(int answerId, String apiName, int count) throws SQLException {
-        apiAnswerStmt.setInt(1, answerId);
-        apiAnswerStmt.setString(2, apiName);
-        apiAnswerStmt.setInt(3, count);
-        apiAnswerStmt.addBatch();
-    }
-
-    private void addApiCommentBatch(int commentId, String apiName, int count) throws SQLException {
-        apiCommentStmt.setInt(1, commentId);
-        apiCommentStmt.setString(2, apiName);
-        apiCommentStmt.setInt(3, count);
-        apiCommentStmt.addBatch();
-    }
-
-    public void batchInsertAnswerRecord(List<JSONObject> answers) throws SQLException {
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
-            prepareStatements(conn);
-
-            for (JSONObject answer : answers) {
-                User owner = getUser(answer);
-                addAnswerBatch(answer, owner);
-                addOwnerBatch(owner);
-
-                // 处理API
-                Map<String, Integer> apiCount = stanfordCoreNLPService.getAllJavaAPI(answer.getString("body"));
-                for (Map.Entry<String, Integer> entry : apiCount.entrySet()) {
-                    addApiBatch(entry.getKey());
-                    addApiAnswerBatch(answer.getInteger("answer_id"), entry.getKey(), entry.getValue());
-                }
-
-                answerBatchCount++;
-                if (answerBatchCount >= BATCH_SIZE) {
-                    executeAnswerBatch(conn);
-                }
+    // 把问题、答案、评论按 BATCH_SIZE 切块，由多个写库线程并行写入，每块独占一个连接并单独提交；
+    // 全部写完后记录 updateTime 作为下一次增量采集的水位线
+    public void saveToDatabase(List<JSONObject> questions, List<JSONObject> answers, List<JSONObject> comments,
+                               Timestamp updateTime) {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        addWriteTasks(tasks, questions, this::batchInsertQuestionRecord);
+        addWriteTasks(tasks, answers, this::batchInsertAnswerRecord);
+        addWriteTasks(tasks, comments, this::batchInsertCommentRecord);
+
+        int threads = Math.min(WRITER_THREADS, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
             }
-
-            // 执行剩余的批处理
-            executeAnswerBatch(conn);
-            conn.commit();
+            finishLoad();
+            insertUpdateTime(updateTime);
+            logger.info("Data successfully saved to database");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Database operation interrupted", e);
+        } catch (ExecutionException e) {
+            logger.error("Failed to save data to database", e.getCause());
+            throw new RuntimeException("Database operation failed", e.getCause());
+        } catch (SQLException e) {
+            logger.error("Failed to save data to database", e);
+            throw new RuntimeException("Database operation failed", e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
-    private void addAnswerBatch(JSONObject answer, User owner) throws SQLException {
-        answerStmt.setInt(1, answer.getInteger("answer_id"));
-        answerStmt.setTimestamp(2, convertDate(answer.getInteger("last_activity_date")));
-        answerStmt.setTimestamp(3, convertDate(answer.getInteger("last_edit_date")));
-        answerStmt.setTimestamp(4, convertDate(answer.getInteger("creation_date")));
-        answerStmt.setInt(5, answer.getInteger("score"));
-        answerStmt.setBoolean(6, answer.getBoolean("is_accepted"));
-        answerStmt.setString(7, answer.getString("content_license"));
-        answerStmt.setInt(8, answer.getInteger("question_id"));
-        answerStmt.setString(9, answer.getString("body"));
-        answerStmt.setInt(10, owner.getAccountId());
-        answerStmt.addBatch();
-    }
-
-    private void executeAnswerBatch(Connection conn) throws SQLException {
-        answerStmt.executeBatch();
-        ownerStmt.executeBatch();
-        apiStmt.executeBatch();
-        apiAnswerStmt.executeBatch();
-
-        answerBatchCount = 0;
-        conn.commit();
-    }
-
-    public void batchInsertCommentRecord(List<JSONObject> comments) throws SQLException {
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
-            prepareStatements(conn);
-
-            for (JSONObject comment : comments) {
-                User owner = getUser(comment);
-                addCommentBatch(comment, owner);
-                addOwnerBatch(owner);
-
-                // 处理API
-                Map<String, Integer> apiCount = stanfordCoreNLPService.getAllJavaAPI(comment.getString("body"));
-                for (Map.Entry<String, Integer> entry : apiCount.entrySet()) {
-                    addApiBatch(entry.getKey());
-                    addApiCommentBatch(comment.getInteger("comment_id"), entry.getKey(), entry.getValue());
-                }
-
-                commentBatchCount++;
-                if (commentBatchCount >= BATCH_SIZE) {
-                    executeCommentBatch(conn);
-                }
-            }
-
-            // 执行剩余的批处理
-            executeCommentBatch(conn);
-            conn.commit();
+    private static void addWriteTasks(List<Callable<Void>> tasks, List<JSONObject> rows, SqlConsumer writer) {
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            List<JSONObject> chunk = rows.subList(i, Math.min(i + BATCH_SIZE, rows.size()));
+            tasks.add(() -> {
+                writer.accept(chunk);
+                return null;
+            });
         }
     }
 
-    private void addCommentBatch(JSONObject comment, User owner) throws SQLException {
-        commentStmt.setInt(1, comment.getInteger("comment_id"));
-        commentStmt.setBoolean(2, comment.getBoolean("edited"));
-        commentStmt.setInt(3, comment.getInteger("post_id"));
-        commentStmt.setString(4, comment.getString("body"));
-        commentStmt.setTimestamp(5, convertDate(comment.getInteger("creation_date")));
-        commentStmt.setInt(6, comment.getInteger("score"));
-        commentStmt.setString(7, comment.getString("content_license"));
-        commentStmt.setInt(8, owner.getAccountId());
-        commentStmt.addBatch();
-    }
-
-    private void executeCommentBatch(Connection conn) throws SQLException {
-        commentStmt.executeBatch();
-        ownerStmt.executeBatch();
-        apiStmt.executeBatch();
-        apiCommentStmt.executeBatch();
-
-        commentBatchCount = 0;
-        conn.commit();
+    @FunctionalInterface
+    private interface SqlConsumer {
+        void accept(List<JSONObject> rows) throws SQLException;
     }
 
-    private static User getUser(JSONObject json) {
+    static User getUser(JSONObject json) {
         JSONObject ownerJson = json.getJSONObject("owner");
         return new User(
                 ownerJson.getString("profile_image"),
@@ -330,18 +203,37 @@ public class DatabaseService implements AutoCloseable {
         );
     }
 
-    private Timestamp convertDate(Integer date) {
-        return date == null ? null : new Timestamp(date * 1000L);
+    // 写入 owner 表的 display_name，不存在的账号统一记为 does_not_exist
+    static String displayName(User owner) {
+        return owner.getAccountId() == -1 ? "does_not_exist" : owner.getDisplayName();
     }
 
-    public void insertUpdateTime() throws SQLException {
+    // 增量采集以本次采集的开始时间作为下一次的水位线，采集期间发生的活动下次还会被抓到
+    public void insertUpdateTime(Timestamp updateTime) throws SQLException {
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement("INSERT INTO last_update VALUES (?)")) {
-            stmt.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+            stmt.setTimestamp(1, updateTime);
             stmt.executeUpdate();
         }
     }
 
+    // 上一次成功采集的水位线，从未采集过时返回 null
+    public Timestamp getLastUpdateTime() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT max(last_update_time) FROM last_update")) {
+            return rs.next() ? rs.getTimestamp(1) : null;
+        }
+    }
+
+    // 等待异步的 API 抽取写完；批量加载结束后刷新统计信息，逐行写入模式下由 autovacuum 负责
+    public void finishLoad() throws SQLException {
+        apiExtraction.drain();
+        if (bulkLoader != null) {
+            bulkLoader.analyze();
+        }
+    }
+
     public boolean isConnected() {
         return dataSource != null && !dataSource.isClosed();
     }
@@ -402,50 +294,117 @@ public class DatabaseService implements AutoCloseable {
                           -- foreign key (post_id) references answer(answer_id)
                      );
                       create table if not exists tag (
-                          tag_name text primary key
+                          tag_id int generated by default as identity primary key,
+                          tag_name text not null unique
                       );
                       create table if not exists api(
-                          api_name text primary key
+                          api_id int generated by default as identity primary key,
+                          api_name text not null unique
                       );
                       create table if not exists connection_tag_and_question (
-                          tag_name text not null,
+                          tag_id int not null,
                           question_id int not null
-                         -- foreign key (tag_name) references tag (tag_name)
-                          -- foreign key (tag_name) references tag (tag_name)
+                         -- foreign key (tag_id) references tag (tag_id)
                       -- foreign key (question_id) references question(question_id)
                          );
                       create table if not exists connection_question_and_api (
                           question_id int not null,
-                          api_name text not null,
+                          api_id int not null,
                           count int not null
                           -- foreign key (question_id) references question(question_id),
-                          -- foreign key (question_id) references question(question_id)
-                      -- foreign key (api_name) references api(api_name)
+                      -- foreign key (api_id) references api(api_id)
                     );
                       create table if not exists connection_answer_and_api(
                           answer_id int not null,
-                          api_name text not null,
+                          api_id int not null,
                           count int not null
-                         -- foreign key (answer_id) references answer(answer_id)
                           -- foreign key (answer_id) references answer(answer_id)
-                      -- foreign key (api_name) references api(api_name)
+                      -- foreign key (api_id) references api(api_id)
                       );
                       create table if not exists connection_comment_and_api(
                           comment_id int not null,
-                          api_name text not null,
+                          api_id int not null,
                           count int not null
                           -- foreign key (comment_id) references comment(comment_id)
-                          -- foreign key (api_name) references api(api_name)
+                          -- foreign key (api_id) references api(api_id)
                       );
                       create table if not exists last_update(
                           last_update_time timestamp not null
                       );
                      """);
+            migrateToSurrogateKeys(conn, "tag", "tag_id", "tag_name", false,
+                    new String[][]{{"connection_tag_and_question", "question_id"}});
+            migrateToSurrogateKeys(conn, "api", "api_id", "api_name", true, new String[][]{
+                    {"connection_question_and_api", "question_id"},
+                    {"connection_answer_and_api", "answer_id"},
+                    {"connection_comment_and_api", "comment_id"}});
+            stmt.executeUpdate("""
+                      create index if not exists idx_tag_question_question_id
+                          on connection_tag_and_question (question_id);
+                      create index if not exists idx_question_api_question_id
+                          on connection_question_and_api (question_id);
+                      create index if not exists idx_answer_api_answer_id
+                          on connection_answer_and_api (answer_id);
+                      create index if not exists idx_comment_api_comment_id
+                          on connection_comment_and_api (comment_id);
+                     """);
+            dimensions.load(conn);
+        }
+    }
+
+    /**
+     * 旧库中 tag、api 以名字为主键，关联表每行都重复存名字。这里给维度表加上自增的整数 ID 作为主键（名字保留唯一约束），
+     * 再按名字关联重建关联表，只保留 ID 列。整个迁移在一个事务中完成，已经迁移过的库直接跳过。
+     * connections 每项为 {关联表, 帖子ID列}；counted 表示关联表带 count 列，重建后的列顺序与新建表一致。
+     */
+    private void migrateToSurrogateKeys(Connection conn, String table, String idColumn, String nameColumn,
+                                        boolean counted, String[][] connections) throws SQLException {
+        try (PreparedStatement check = conn.prepareStatement("SELECT 1 FROM information_schema.columns"
+                + " WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?")) {
+            check.setString(1, table);
+            check.setString(2, idColumn);
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        logger.info("Migrating {} to integer keys", table);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + idColumn + " int GENERATED BY DEFAULT AS IDENTITY");
+            for (String[] connection : connections) {
+                // 关联表里可能有维度表中缺失的名字
+                stmt.execute("INSERT INTO " + table + " (" + nameColumn + ") SELECT DISTINCT " + nameColumn
+                        + " FROM " + connection[0] + " ON CONFLICT DO NOTHING");
+            }
+            stmt.execute("ALTER TABLE " + table + " DROP CONSTRAINT " + table + "_pkey, ADD PRIMARY KEY (" + idColumn
+                    + "), ADD UNIQUE (" + nameColumn + ")");
+            for (String[] connection : connections) {
+                String columns = counted
+                        ? "c." + connection[1] + ", d." + idColumn + ", c.count"
+                        : "d." + idColumn + ", c." + connection[1];
+                stmt.execute("CREATE TABLE " + connection[0] + "_migrated AS SELECT " + columns + " FROM "
+                        + connection[0] + " c JOIN " + table + " d USING (" + nameColumn + ")");
+                stmt.execute("DROP TABLE " + connection[0]);
+                stmt.execute("ALTER TABLE " + connection[0] + "_migrated RENAME TO " + connection[0]);
+                stmt.execute("ALTER TABLE " + connection[0] + " ALTER COLUMN " + idColumn + " SET NOT NULL,"
+                        + " ALTER COLUMN " + connection[1] + " SET NOT NULL"
+                        + (counted ? ", ALTER COLUMN count SET NOT NULL" : ""));
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
         }
     }
 
     @Override
     public void close() {
+        apiExtraction.close();
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
@@ -0,0 +1,191 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * owner、tag、api 维度行的进程内缓存。
+ * 记录已经提交到数据库的维度行，写入前过滤掉没有变化的行：tag 和 api 缓存名字到整数 ID 的映射，
+ * 连接表只存 ID；owner 记录最近一次写入的各列取值，只有 reputation、display_name 等列确实变化时才重新写入。
+ * 每类最多缓存 capacity 条，超出时淘汰最久未用的；启动时从数据库预热。
+ * 多个写库线程共用，所有方法都是线程安全的。
+ */
+class DimensionCache {
+    private static final Logger logger = LoggerFactory.getLogger(DimensionCache.class);
+
+    // 以名字为唯一键、整数 ID 为主键的维度表
+    enum Dimension {
+        TAG("tag", "tag_id", "tag_name"),
+        API("api", "api_id", "api_name");
+
+        final String table;
+        final String idColumn;
+        final String nameColumn;
+
+        Dimension(String table, String idColumn, String nameColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+            this.nameColumn = nameColumn;
+        }
+    }
+
+    // owner 表除主键外的所有列，取值与写入数据库的值一致；按列值逐一比较，不用散列，避免冲突时误判为未变化
+    private record OwnerRow(int userId, String profileImage, String link, String userType,
+                            String displayName, int reputation) {
+        static OwnerRow of(User owner) {
+            return new OwnerRow(owner.getUserId(), owner.getProfileImage(), owner.getLink(), owner.getUserType(),
+                    DatabaseService.displayName(owner), owner.getReputation());
+        }
+    }
+
+    private final int capacity;
+    // account_id -> 最近一次写入的各列取值
+    private final Lru<Integer, OwnerRow> owners;
+    // 名字 -> ID
+    private final EnumMap<Dimension, Lru<String, Integer>> ids = new EnumMap<>(Dimension.class);
+
+    DimensionCache(int capacity) {
+        this.capacity = capacity;
+        this.owners = new Lru<>(capacity);
+        for (Dimension dimension : Dimension.values()) {
+            ids.put(dimension, new Lru<>(capacity));
+        }
+    }
+
+    // 数据库中的 owner 行与 owner 当前的内容一致时返回 true，此时不必再写
+    boolean isOwnerCurrent(User owner) {
+        OwnerRow written;
+        synchronized (owners) {
+            written = owners.get(owner.getAccountId());
+        }
+        return OwnerRow.of(owner).equals(written);
+    }
+
+    // 以下方法在事务提交后调用，回滚的行不会进入缓存
+    void ownersWritten(Collection<User> written) {
+        synchronized (owners) {
+            for (User owner : written) {
+                owners.put(owner.getAccountId(), OwnerRow.of(owner));
+            }
+        }
+    }
+
+    void idsWritten(Dimension dimension, Map<String, Integer> written) {
+        Lru<String, Integer> cached = ids.get(dimension);
+        synchronized (cached) {
+            cached.putAll(written);
+        }
+    }
+
+    /**
+     * 把 names 对应的 ID 填入 resolved。缓存中没有的名字在 conn 的当前事务中按顺序插入（已存在则跳过）后查询，
+     * 与其他写库线程的加锁顺序一致。返回这部分从数据库查到的映射，调用方在事务提交后用 idsWritten() 记入缓存；
+     * 事务回滚时新插入的 ID 随之作废，不能提前缓存。
+     */
+    Map<String, Integer> resolve(Connection conn, Dimension dimension, SortedSet<String> names,
+                                 Map<String, Integer> resolved) throws SQLException {
+        List<String> missing = new ArrayList<>();
+        Lru<String, Integer> cached = ids.get(dimension);
+        synchronized (cached) {
+            for (String name : names) {
+                Integer id = cached.get(name);
+                if (id != null) {
+                    resolved.put(name, id);
+                } else {
+                    missing.add(name);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return Map.of();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + dimension.table + " ("
+                + dimension.nameColumn + ") VALUES (?) ON CONFLICT (" + dimension.nameColumn + ") DO NOTHING")) {
+            for (String name : missing) {
+                stmt.setString(1, name);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        Map<String, Integer> fetched = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT " + dimension.nameColumn + ", "
+                + dimension.idColumn + " FROM " + dimension.table + " WHERE " + dimension.nameColumn + " = ANY(?)")) {
+            stmt.setArray(1, conn.createArrayOf("text", missing.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    fetched.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+        }
+        resolved.putAll(fetched);
+        return fetched;
+    }
+
+    // 从数据库预热，每类最多读取 capacity 行
+    void load(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        // PostgreSQL 只在事务内按 fetchSize 分批读取
+        conn.setAutoCommit(false);
+        try {
+            int ownerCount = 0;
+            try (PreparedStatement stmt = prepare(conn, "SELECT account_id, user_id, profile_image, link,"
+                    + " user_type, display_name, reputation FROM owner LIMIT ?");
+                 ResultSet rs = stmt.executeQuery()) {
+                synchronized (owners) {
+                    while (rs.next()) {
+                        owners.put(rs.getInt(1), new OwnerRow(rs.getInt(2), rs.getString(3), rs.getString(4),
+                                rs.getString(5), rs.getString(6), rs.getInt(7)));
+                        ownerCount++;
+                    }
+                }
+            }
+            int tagCount = loadIds(conn, Dimension.TAG);
+            int apiCount = loadIds(conn, Dimension.API);
+            conn.commit();
+            logger.info("Loaded {} owners, {} tags and {} apis into dimension cache", ownerCount, tagCount, apiCount);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int loadIds(Connection conn, Dimension dimension) throws SQLException {
+        int count = 0;
+        Lru<String, Integer> cached = ids.get(dimension);
+        try (PreparedStatement stmt = prepare(conn, "SELECT " + dimension.nameColumn + ", " + dimension.idColumn
+                + " FROM " + dimension.table + " LIMIT ?");
+             ResultSet rs = stmt.executeQuery()) {
+            synchronized (cached) {
+                while (rs.next()) {
+                    cached.put(rs.getString(1), rs.getInt(2));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setInt(1, capacity);
+        stmt.setFetchSize(10000);
+        return stmt;
+    }
+
+    // 按访问顺序淘汰的定长映射，调用方负责同步
+    private static final class Lru<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        Lru(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
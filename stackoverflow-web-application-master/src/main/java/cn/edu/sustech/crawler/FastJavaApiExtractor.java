@@ -0,0 +1,285 @@
+package cn.edu.sustech.crawler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 手写的 java.* 提及扫描器，对正文只扫描一遍，不构造分词对象。
+ * 规则取自 CoreNLP PTB 分词器对这类文本的切分结果：
+ * <ul>
+ *     <li>符合 SGML 语法的标签整体跳过，属性中的 java.* 不计数；</li>
+ *     <li>实体（&amp;lt; 等）在 PTB 中是独立的词，只起分隔作用；</li>
+ *     <li>java. 后必须紧跟字母，且前面不能紧挨字母、数字、/、@、#，或字母数字后的单个 . - _ ! ?；</li>
+ *     <li>词内允许字母和数字，. ! ? 只在后面是字母时保留，- 和 @ 只在后面是字母或数字时保留，
+ *     同一个词里出现过 - 后不再接 . ! ?，反之亦然，其余字符结束当前词。</li>
+ * </ul>
+ * 与 CoreNLP 已知的差异只在少见写法上：斜杠连接的两个 API（"java.util.List/java.util.Set"）只计前一个，
+ * "java.util.Queue.;" 这类 CoreNLP 会保留末尾句点的情况，以及 ":1java.io"、"java.io...-x" 这类
+ * 数字、省略号与词紧挨在一起的写法。
+ */
+public class FastJavaApiExtractor implements JavaApiExtractor {
+    private static final String PREFIX = "java.";
+
+    @Override
+    public Map<String, Integer> getAllJavaAPI(String htmlText) {
+        Map<String, Integer> javaAPIs = new HashMap<>();
+        int length = htmlText.length();
+        int i = 0;
+        while (i < length) {
+            char c = htmlText.charAt(i);
+            if (c == '<') {
+                int end = skipTag(htmlText, i);
+                i = end > i ? end : i + 1;
+            } else if (c == 'j' && htmlText.startsWith(PREFIX, i) && i + PREFIX.length() < length
+                    && Character.isLetter(htmlText.charAt(i + PREFIX.length())) && startsWord(htmlText, i)) {
+                int end = scanWord(htmlText, i + PREFIX.length());
+                javaAPIs.merge(htmlText.substring(i, end), 1, Integer::sum);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return javaAPIs;
+    }
+
+    // 词从 start 开始（start 处为字母），返回词的结束位置。
+    // PTB 的词分两类连接符：. ! ? 与 - 不能在同一个词里先后出现，@ 两类都可以接；- 连接的部分只允许 ASCII 字母数字
+    private static int scanWord(String text, int start) {
+        int length = text.length();
+        int i = start;
+        boolean hyphenated = false;
+        boolean exclaimed = false;
+        boolean nonAscii = false;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (hyphenated ? isAsciiLetterOrDigit(c) : Character.isLetterOrDigit(c)) {
+                nonAscii |= c > 0x7f;
+                i++;
+                continue;
+            }
+            if (i + 1 >= length) {
+                break;
+            }
+            char next = text.charAt(i + 1);
+            if (c == '.' && !hyphenated && Character.isLetter(next)) {
+                i++;
+            } else if ((c == '!' || c == '?') && !hyphenated && Character.isLetter(next)) {
+                exclaimed = true;
+                i++;
+            } else if (c == '-' && !exclaimed && !nonAscii && isAsciiLetterOrDigit(next)) {
+                hyphenated = true;
+                i++;
+            } else if (c == '@' && !hyphenated && Character.isLetterOrDigit(next)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    // 判断 start 处的 java. 是否是一个新词的开头
+    private static boolean startsWord(String text, int start) {
+        if (start == 0) {
+            return true;
+        }
+        char c = text.charAt(start - 1);
+        char before = start > 1 ? text.charAt(start - 2) : ' ';
+        switch (c) {
+            case '_': {
+                // 单个 _ 跟在普通词后面会连成一个词，"__" 或带 . ! ? 的词后面则是独立的标点
+                int i = start - 1;
+                while (i >= 0 && text.charAt(i) == '_') {
+                    i--;
+                }
+                return i < start - 2 || i < 0 || !Character.isLetterOrDigit(text.charAt(i)) || afterDotted(text, i);
+            }
+            case '.':
+                // 单个 . 把前后连成一个词，前面不是字母数字时则是独立的标点
+                return !Character.isLetterOrDigit(before);
+            case '-': {
+                // - 同理，此外 "x.-java"、"x,-java" 这类紧跟在词后的 . , 也会被连进来
+                int i = start - 2;
+                while (i >= 0 && (text.charAt(i) == '.' || text.charAt(i) == ',')) {
+                    i--;
+                }
+                return i < 0 || !Character.isLetterOrDigit(text.charAt(i)) || i == start - 2 && afterExclaimed(text, i);
+            }
+            case '!':
+            case '?':
+                // 只有字母开头的词会和后面连起来
+                return !startsWithLetter(text, start - 2);
+            case '#':
+                // "#java" 会被当作话题标签，"##" 则是独立的标点
+                return before == '#';
+            case '/':
+            case '@':
+                return false;
+            default:
+                // "+1java.io" 中 +1 是一个带符号的数
+                return !Character.isLetterOrDigit(c) || isSignedNumber(text, start - 1);
+        }
+    }
+
+    // end 处是否是带符号整数的最后一位，且符号前不是字母数字
+    private static boolean isSignedNumber(String text, int end) {
+        int i = end;
+        while (i >= 0 && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i--;
+        }
+        return i < end && i >= 0 && (text.charAt(i) == '+' || text.charAt(i) == '-')
+                && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+    }
+
+    // 以 end 结尾的字母数字串是否以字母开头
+    private static boolean startsWithLetter(String text, int end) {
+        if (end < 0 || !Character.isLetterOrDigit(text.charAt(end))) {
+            return false;
+        }
+        int i = end;
+        while (i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) {
+            i--;
+        }
+        return Character.isLetter(text.charAt(i));
+    }
+
+    // end 处的词（向前到空白或标点为止）是否包含 . ! ? 连接符
+    private static boolean afterDotted(String text, int end) {
+        int i = end;
+        while (i > 0) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '-' || c == '_') {
+                i--;
+            } else {
+                return (c == '.' || c == '!' || c == '?') && Character.isLetterOrDigit(text.charAt(i - 1));
+            }
+        }
+        return false;
+    }
+
+    // end 处的词是否包含 ! 或 ?，这类词后面的 - 不再连接
+    private static boolean afterExclaimed(String text, int end) {
+        int i = end;
+        while (i > 0) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '.' || c == '@') {
+                i--;
+            } else {
+                return (c == '!' || c == '?') && Character.isLetter(text.charAt(i - 1));
+            }
+        }
+        return false;
+    }
+
+    // 若 start 处是一个标签，返回标签结束后的位置，否则返回 -1
+    private static int skipTag(String text, int start) {
+        int length = text.length();
+        int i = start + 1;
+        if (i >= length) {
+            return -1;
+        }
+        char c = text.charAt(i);
+        if (c == '!' || c == '?') {
+            // <!-- 注释 --> 与 <?xml ...?>：下一字符须为字母或 -，到行尾前的第一个 > 结束
+            if (i + 1 >= length || !(isAsciiLetter(text.charAt(i + 1)) || text.charAt(i + 1) == '-')) {
+                return -1;
+            }
+            for (i += 2; i < length; i++) {
+                char d = text.charAt(i);
+                if (d == '>') {
+                    return i + 1;
+                }
+                if (d == '\r' || d == '\n') {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+        if (c == '/') {
+            i = skipName(text, i + 1);
+            if (i < 0) {
+                return -1;
+            }
+            i = skipSpaces(text, i);
+            return i < length && text.charAt(i) == '>' ? i + 1 : -1;
+        }
+        i = skipName(text, i);
+        if (i < 0) {
+            return -1;
+        }
+        // 属性：name、name=name、name='...'、name="..."，以空格分隔
+        while (true) {
+            int afterSpaces = skipSpaces(text, i);
+            if (afterSpaces == i) {
+                break;
+            }
+            int afterName = skipName(text, afterSpaces);
+            if (afterName < 0) {
+                i = afterSpaces;
+                break;
+            }
+            int j = skipSpaces(text, afterName);
+            if (j < length && text.charAt(j) == '=') {
+                j = skipSpaces(text, j + 1);
+                int afterValue = skipValue(text, j);
+                if (afterValue < 0) {
+                    return -1;
+                }
+                i = afterValue;
+            } else {
+                i = afterName;
+            }
+        }
+        i = skipSpaces(text, i);
+        if (i < length && text.charAt(i) == '/') {
+            i++;
+        }
+        return i < length && text.charAt(i) == '>' ? i + 1 : -1;
+    }
+
+    private static int skipValue(String text, int start) {
+        if (start >= text.length()) {
+            return -1;
+        }
+        char quote = text.charAt(start);
+        if (quote == '"' || quote == '\'') {
+            int end = text.indexOf(quote, start + 1);
+            return end < 0 ? -1 : end + 1;
+        }
+        return skipName(text, start);
+    }
+
+    // 名称：字母开头，后接字母、数字或 _ : . -
+    private static int skipName(String text, int start) {
+        int length = text.length();
+        if (start >= length || !isAsciiLetter(text.charAt(start))) {
+            return -1;
+        }
+        int i = start + 1;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '_' || c == ':' || c == '.' || c == '-') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int skipSpaces(String text, int start) {
+        int i = start;
+        while (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+}
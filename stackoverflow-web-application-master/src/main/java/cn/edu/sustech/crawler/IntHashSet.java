@@ -0,0 +1,171 @@
+package cn.edu.sustech.crawler;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 基于开放寻址（线性探测）的 int 集合，不装箱。
+ * 0 被用作空槽标记，集合中的 0 单独用 containsZero 记录。非线程安全。
+ */
+public class IntHashSet {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean containsZero;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    public IntHashSet(int expectedSize) {
+        allocate(IntHashing.tableSize(expectedSize, LOAD_FACTOR));
+    }
+
+    public boolean add(int value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int pos = IntHashing.mix(value) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == value) {
+                return false;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int pos = IntHashing.mix(value) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == value) {
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(int value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int pos = IntHashing.mix(value) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == value) {
+                shiftKeys(pos);
+                size--;
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    public void addAll(int[] values) {
+        for (int value : values) {
+            add(value);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int i = 0;
+        if (containsZero) {
+            result[i++] = 0;
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    // 删除后把同一探测链上的后续元素前移，保持线性探测的不变式
+    private void shiftKeys(int pos) {
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int key;
+            while (true) {
+                key = keys[pos];
+                if (key == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = IntHashing.mix(key) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.max(1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        allocate(capacity);
+        for (int key : oldKeys) {
+            if (key != 0) {
+                int pos = IntHashing.mix(key) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package cn.edu.sustech.crawler;
+
+// 开放寻址 int 容器共用的散列与容量计算
+final class IntHashing {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private IntHashing() {
+    }
+
+    // 连续的帖子 ID 直接取低位会聚集成长探测链，先用黄金分割乘法打散
+    static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // 能在给定负载因子下容纳 expectedSize 个元素的最小 2 的幂
+    static int tableSize(int expectedSize, float loadFactor) {
+        long needed = (long) Math.ceil(Math.max(2, expectedSize) / loadFactor);
+        if (needed >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
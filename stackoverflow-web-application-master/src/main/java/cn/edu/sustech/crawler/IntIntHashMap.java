@@ -0,0 +1,210 @@
+package cn.edu.sustech.crawler;
+
+import java.util.Arrays;
+
+/**
+ * 基于开放寻址（线性探测）的 int -> int 映射，不装箱。
+ * 键 0 被用作空槽标记，其映射单独存放。非线程安全。
+ */
+public class IntIntHashMap {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final int missingValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean containsZeroKey;
+    private int zeroValue;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    // missingValue 为查不到键时 get 返回的值
+    public IntIntHashMap(int missingValue) {
+        this(16, missingValue);
+    }
+
+    public IntIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(IntHashing.tableSize(expectedSize, LOAD_FACTOR));
+    }
+
+    public int get(int key) {
+        if (key == 0) {
+            return containsZeroKey ? zeroValue : missingValue;
+        }
+        int pos = IntHashing.mix(key) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == key) {
+                return values[pos];
+            }
+            pos = (pos + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return containsZeroKey;
+        }
+        int pos = IntHashing.mix(key) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == key) {
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    // 返回旧值，不存在时返回 missingValue
+    public int put(int key, int value) {
+        if (key == 0) {
+            int old = containsZeroKey ? zeroValue : missingValue;
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return old;
+        }
+        int pos = IntHashing.mix(key) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == key) {
+                int old = values[pos];
+                values[pos] = value;
+                return old;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    // 累加计数，返回累加后的值（键不存在时从 0 开始）
+    public int addTo(int key, int delta) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                zeroValue = 0;
+                size++;
+            }
+            zeroValue += delta;
+            return zeroValue;
+        }
+        int pos = IntHashing.mix(key) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == key) {
+                values[pos] += delta;
+                return values[pos];
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = delta;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    public int remove(int key) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                return missingValue;
+            }
+            containsZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        int pos = IntHashing.mix(key) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == key) {
+                int old = values[pos];
+                shiftKeys(pos);
+                size--;
+                return old;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(EntryConsumer action) {
+        if (containsZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void shiftKeys(int pos) {
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int key;
+            while (true) {
+                key = keys[pos];
+                if (key == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = IntHashing.mix(key) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = key;
+            values[last] = values[pos];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.max(1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int pos = IntHashing.mix(oldKeys[i]) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = oldKeys[i];
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package cn.edu.sustech.crawler;
+
+import java.util.Map;
+
+// 从帖子正文（HTML）中找出以 java. 开头的 API 名及其出现次数
+public interface JavaApiExtractor {
+
+    Map<String, Integer> getAllJavaAPI(String htmlText);
+
+    // 按 api_extractor 配置选择实现：fast（默认）、corenlp 或 code
+    static JavaApiExtractor fromConfig() {
+        if ("corenlp".equalsIgnoreCase(ApiConfig.API_EXTRACTOR)) {
+            return new StanfordCoreNLPService();
+        }
+        if ("code".equalsIgnoreCase(ApiConfig.API_EXTRACTOR)) {
+            return new CodeAwareJavaApiExtractor();
+        }
+        return new FastJavaApiExtractor();
+    }
+}
@@ -0,0 +1,327 @@
+package cn.edu.sustech.crawler;
+
+import com.alibaba.fastjson.JSONObject;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 COPY 的批量加载。
+ * 行数据先以 CSV 流式 COPY 到暂存表，再用一组集合操作合并进正式表：
+ * 主表与 owner 按主键 upsert（只更新有变化的行），标签关联表先删除本批问题的旧行再插入。
+ * 标签关联的暂存表保存标签名，合并时先补齐 tag 表，再按名字关联换成整数 ID。
+ * DimensionCache 中已写入且没有变化的 owner 不进入暂存表。
+ * 同一连接上同时只能有一个 COPY，所以每张暂存表单独遍历一次数据。
+ * 与 BatchWriter 相同，帖子正文在合并提交之后才交给 ApiExtractionStage，分词不占用加载事务，API 关联行由该阶段写入。
+ * 暂存表是每个连接各自的临时表（ON COMMIT DELETE ROWS），提交时自动清空，不需要 TRUNCATE，
+ * 不同连接上的加载互不加锁，可以在多个写库线程上并行调用。
+ */
+public class PgBulkLoader {
+    private static final Logger logger = LoggerFactory.getLogger(PgBulkLoader.class);
+
+    // 暂存表及其定义
+    private static final Map<String, String> STAGING_TABLES = Map.of(
+            "stage_owner", "(LIKE owner)",
+            "stage_question", "(LIKE question)",
+            "stage_answer", "(LIKE answer)",
+            "stage_comment", "(LIKE comment)",
+            "stage_tag_question", "(tag_name text, question_id int)");
+    // 合并时写入的正式表
+    private static final String[] MERGED_TABLES = {
+            "owner", "question", "answer", "comment", "tag", "api", "connection_tag_and_question",
+            "connection_question_and_api", "connection_answer_and_api", "connection_comment_and_api",
+    };
+
+    private final DataSource dataSource;
+    private final ApiExtractionStage apiExtraction;
+    private final DimensionCache dimensions;
+    private final CrawlerMetrics metrics = CrawlerMetrics.shared();
+
+    PgBulkLoader(DataSource dataSource, ApiExtractionStage apiExtraction, DimensionCache dimensions) {
+        this.dataSource = dataSource;
+        this.apiExtraction = apiExtraction;
+        this.dimensions = dimensions;
+    }
+
+    public void loadQuestions(List<JSONObject> questions) throws SQLException {
+        if (questions.isEmpty()) {
+            return;
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long started = System.nanoTime();
+                createStaging(conn, "stage_owner", "stage_question", "stage_tag_question");
+                List<User> owners = copyOwners(conn, questions);
+                copy(conn, "stage_question", questions, (question, row) -> row
+                        .add(question.getInteger("question_id"))
+                        .add(question.getInteger("score"))
+                        .add(question.getString("link"))
+                        .add(question.getInteger("answer_count"))
+                        .add(question.getInteger("view_count"))
+                        .add(question.getString("content_license"))
+                        .add(question.getString("title"))
+                        .add(convertDate(question.getInteger("last_activity_date")))
+                        .add(convertDate(question.getInteger("last_edit_date")))
+                        .add(convertDate(question.getInteger("creation_date")))
+                        .add(DatabaseService.getUser(question).getAccountId())
+                        .add(question.getString("body")));
+                copy(conn, "stage_tag_question", questions, (question, row) -> {
+                    for (Object tag : question.getJSONArray("tags")) {
+                        row.add(tag).add(question.getInteger("question_id")).end();
+                    }
+                });
+
+                execute(conn,
+                        mergeOwners(),
+                        "INSERT INTO question SELECT DISTINCT ON (question_id) * FROM stage_question"
+                                + " ORDER BY question_id\n" + DatabaseService.QUESTION_CONFLICT,
+                        "DELETE FROM connection_tag_and_question c USING stage_question s"
+                                + " WHERE c.question_id = s.question_id",
+                        mergeNames("tag", "tag_name", "stage_tag_question"),
+                        "INSERT INTO connection_tag_and_question (tag_id, question_id)"
+                                + " SELECT DISTINCT t.tag_id, s.question_id FROM stage_tag_question s"
+                                + " JOIN tag t USING (tag_name)");
+                long executed = System.nanoTime();
+                conn.commit();
+                metrics.dbBatch("question", questions.size(), executed - started, System.nanoTime() - executed);
+                dimensions.ownersWritten(owners);
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw asSqlException("question", e);
+            }
+        }
+        submitApis(ApiExtractionStage.PostType.QUESTION, questions, "question_id");
+    }
+
+    public void loadAnswers(List<JSONObject> answers) throws SQLException {
+        if (answers.isEmpty()) {
+            return;
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long started = System.nanoTime();
+                createStaging(conn, "stage_owner", "stage_answer");
+                List<User> owners = copyOwners(conn, answers);
+                copy(conn, "stage_answer", answers, (answer, row) -> row
+                        .add(answer.getInteger("answer_id"))
+                        .add(convertDate(answer.getInteger("last_activity_date")))
+                        .add(convertDate(answer.getInteger("last_edit_date")))
+                        .add(convertDate(answer.getInteger("creation_date")))
+                        .add(answer.getInteger("score"))
+                        .add(answer.getBoolean("is_accepted"))
+                        .add(answer.getString("content_license"))
+                        .add(answer.getInteger("question_id"))
+                        .add(answer.getString("body"))
+                        .add(DatabaseService.getUser(answer).getAccountId()));
+
+                execute(conn,
+                        mergeOwners(),
+                        "INSERT INTO answer SELECT DISTINCT ON (answer_id) * FROM stage_answer"
+                                + " ORDER BY answer_id\n" + DatabaseService.ANSWER_CONFLICT);
+                long executed = System.nanoTime();
+                conn.commit();
+                metrics.dbBatch("answer", answers.size(), executed - started, System.nanoTime() - executed);
+                dimensions.ownersWritten(owners);
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw asSqlException("answer", e);
+            }
+        }
+        submitApis(ApiExtractionStage.PostType.ANSWER, answers, "answer_id");
+    }
+
+    public void loadComments(List<JSONObject> comments) throws SQLException {
+        if (comments.isEmpty()) {
+            return;
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long started = System.nanoTime();
+                createStaging(conn, "stage_owner", "stage_comment");
+                List<User> owners = copyOwners(conn, comments);
+                copy(conn, "stage_comment", comments, (comment, row) -> row
+                        .add(comment.getInteger("comment_id"))
+                        .add(comment.getBoolean("edited"))
+                        .add(comment.getInteger("post_id"))
+                        .add(comment.getString("body"))
+                        .add(convertDate(comment.getInteger("creation_date")))
+                        .add(comment.getInteger("score"))
+                        .add(comment.getString("content_license"))
+                        .add(DatabaseService.getUser(comment).getAccountId()));
+
+                execute(conn,
+                        mergeOwners(),
+                        "INSERT INTO comment SELECT DISTINCT ON (comment_id) * FROM stage_comment"
+                                + " ORDER BY comment_id\n" + DatabaseService.COMMENT_CONFLICT);
+                long executed = System.nanoTime();
+                conn.commit();
+                metrics.dbBatch("comment", comments.size(), executed - started, System.nanoTime() - executed);
+                dimensions.ownersWritten(owners);
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw asSqlException("comment", e);
+            }
+        }
+        submitApis(ApiExtractionStage.PostType.COMMENT, comments, "comment_id");
+    }
+
+    // 大批量合并后刷新规划器统计信息
+    public void analyze() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String table : MERGED_TABLES) {
+                stmt.execute("ANALYZE " + table);
+            }
+        }
+        logger.info("Analyzed tables after bulk load");
+    }
+
+    private static String mergeOwners() {
+        return "INSERT INTO owner SELECT DISTINCT ON (account_id) * FROM stage_owner"
+                + " ORDER BY account_id\n" + DatabaseService.OWNER_CONFLICT;
+    }
+
+    // 只插入维度表中还没有的名字，ON CONFLICT 时也会消耗 ID 序列
+    private static String mergeNames(String table, String column, String stagingTable) {
+        return "INSERT INTO " + table + " (" + column + ") SELECT DISTINCT s." + column + " FROM " + stagingTable
+                + " s WHERE NOT EXISTS (SELECT 1 FROM " + table + " d WHERE d." + column + " = s." + column + ")"
+                + " ORDER BY 1 ON CONFLICT (" + column + ") DO NOTHING";
+    }
+
+    // 每个账号只写第一次出现的行，返回写入暂存表的 owner，提交后记入缓存
+    private List<User> copyOwners(Connection conn, List<JSONObject> posts) throws SQLException, IOException {
+        List<User> owners = new ArrayList<>();
+        IntHashSet seen = new IntHashSet(posts.size());
+        copy(conn, "stage_owner", posts, (post, row) -> {
+            User owner = DatabaseService.getUser(post);
+            if (!seen.add(owner.getAccountId()) || dimensions.isOwnerCurrent(owner)) {
+                return;
+            }
+            row.add(owner.getAccountId())
+                    .add(owner.getUserId())
+                    .add(owner.getProfileImage())
+                    .add(owner.getLink())
+                    .add(owner.getUserType())
+                    .add(DatabaseService.displayName(owner))
+                    .add(owner.getReputation());
+            owners.add(owner);
+        });
+        return owners;
+    }
+
+    // 批次提交后才提交抽取：回滚的批次不产生关联行，连接也不会在抽取阶段的在途上限上等待
+    private void submitApis(ApiExtractionStage.PostType type, List<JSONObject> posts, String idField)
+            throws SQLException {
+        for (JSONObject post : posts) {
+            apiExtraction.submit(type, post.getInteger(idField), post.getString("body"));
+        }
+    }
+
+    // 把每条记录转换成 CSV 行，COPY 到暂存表；只写一行的转换器不必调用 end()
+    private static void copy(Connection conn, String table, List<JSONObject> posts, RowMapper mapper)
+            throws SQLException, IOException {
+        String sql = "COPY " + table + " FROM STDIN (FORMAT csv)";
+        try (CsvRow row = new CsvRow(new PGCopyOutputStream(conn.unwrap(PGConnection.class), sql, 1 << 16))) {
+            for (JSONObject post : posts) {
+                mapper.map(post, row);
+                row.endIfOpen();
+            }
+        }
+    }
+
+    // 临时表随会话存在，连接池中的每个连接第一次使用时创建；上一次加载的行已在提交时清空
+    private static void createStaging(Connection conn, String... tables) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : tables) {
+                stmt.execute("CREATE TEMP TABLE IF NOT EXISTS " + table + " " + STAGING_TABLES.get(table)
+                        + " ON COMMIT DELETE ROWS");
+            }
+        }
+    }
+
+    private static void execute(Connection conn, String... statements) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    private static SQLException asSqlException(String kind, Exception e) {
+        if (e instanceof SQLException sqlException) {
+            return sqlException;
+        }
+        return new SQLException("Failed to bulk load " + kind + " batch", e);
+    }
+
+    private static Timestamp convertDate(Integer date) {
+        return date == null ? null : new Timestamp(date * 1000L);
+    }
+
+    @FunctionalInterface
+    private interface RowMapper {
+        void map(JSONObject post, CsvRow row) throws IOException;
+    }
+
+    // CSV 行写入器：null 写为空字段，文本一律加引号，引号内的引号加倍
+    private static final class CsvRow implements Closeable {
+        private final Writer out;
+        private boolean open;
+
+        CsvRow(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        CsvRow add(Object value) throws IOException {
+            if (open) {
+                out.write(',');
+            }
+            open = true;
+            if (value == null) {
+                return this;
+            }
+            if (value instanceof Boolean bool) {
+                out.write(bool ? 't' : 'f');
+            } else if (value instanceof Number || value instanceof Timestamp) {
+                out.write(value.toString());
+            } else {
+                String text = value.toString();
+                out.write('"');
+                out.write(text.indexOf('"') < 0 ? text : text.replace("\"", "\"\""));
+                out.write('"');
+            }
+            return this;
+        }
+
+        void end() throws IOException {
+            out.write('\n');
+            open = false;
+        }
+
+        void endIfOpen() throws IOException {
+            if (open) {
+                end();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 采集进度的追加式二进制日志。
+ * 每次进度变化只追加一条由记录类型和若干 int 组成的小记录；启动时先读快照再重放日志。
+ * 日志中的记录数超过阈值后，把当前完整状态写成新快照并清空日志（压缩）。
+ * 重放是幂等的，所以在快照替换与日志清空之间崩溃也不会破坏状态；日志尾部不完整的记录会被丢弃。
+ */
+public class ProgressLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ProgressLog.class);
+
+    private static final int MAGIC = 0x43504C31; // "CPL1"
+    private static final byte STATS = 1;
+    private static final byte PAGE = 2;
+    private static final byte STATE = 3;
+    private static final byte QUESTION = 4;
+    private static final byte ANSWER = 5;
+    private static final byte COMMENT = 6;
+    private static final byte BATCH = 7;
+    private static final byte WINDOW = 8;
+    private static final byte WINDOW_PAGE = 9;
+    private static final byte ANSWERS_DONE = 10;
+    private static final byte COMMENTS_DONE = 11;
+
+    // 记录内容的回调，重放快照和日志时使用
+    public interface Handler {
+        void onStats(int totalQuestions, int noAnswerQuestions, int totalPages);
+
+        void onPage(int page);
+
+        void onState(CollectionState state);
+
+        void onQuestion(int questionId);
+
+        void onAnswer(int questionId, int answerId);
+
+        void onComment(int targetId, boolean isQuestion, int commentId);
+
+        void onBatch(int batchIndex, int[] questionIds);
+
+        void onWindow(String tag, long from, long to, int total);
+
+        void onWindowPage(String tag, long from, int page, boolean done);
+
+        void onAnswersDone(int[] questionIds);
+
+        void onCommentsDone(boolean isQuestion, int[] postIds);
+    }
+
+    // 记录编码器，日志追加与快照写出共用
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private int records;
+
+        private Writer(OutputStream out) {
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        }
+
+        public void stats(int totalQuestions, int noAnswerQuestions, int totalPages) throws IOException {
+            out.writeByte(STATS);
+            out.writeInt(totalQuestions);
+            out.writeInt(noAnswerQuestions);
+            out.writeInt(totalPages);
+            records++;
+        }
+
+        public void page(int page) throws IOException {
+            out.writeByte(PAGE);
+            out.writeInt(page);
+            records++;
+        }
+
+        public void state(CollectionState state) throws IOException {
+            out.writeByte(STATE);
+            out.writeUTF(state.name());
+            records++;
+        }
+
+        public void question(int questionId) throws IOException {
+            out.writeByte(QUESTION);
+            out.writeInt(questionId);
+            records++;
+        }
+
+        public void answer(int questionId, int answerId) throws IOException {
+            out.writeByte(ANSWER);
+            out.writeInt(questionId);
+            out.writeInt(answerId);
+            records++;
+        }
+
+        public void comment(int targetId, boolean isQuestion, int commentId) throws IOException {
+            out.writeByte(COMMENT);
+            out.writeInt(targetId);
+            out.writeBoolean(isQuestion);
+            out.writeInt(commentId);
+            records++;
+        }
+
+        public void batch(int batchIndex, int[] questionIds) throws IOException {
+            out.writeByte(BATCH);
+            out.writeInt(batchIndex);
+            writeIds(questionIds);
+            records++;
+        }
+
+        // 分片采集规划出的一个 creation_date 窗口
+        public void window(String tag, long from, long to, int total) throws IOException {
+            out.writeByte(WINDOW);
+            out.writeUTF(tag);
+            out.writeLong(from);
+            out.writeLong(to);
+            out.writeInt(total);
+            records++;
+        }
+
+        // 窗口内已完成的最后一页，done 表示整个窗口已采集完
+        public void windowPage(String tag, long from, int page, boolean done) throws IOException {
+            out.writeByte(WINDOW_PAGE);
+            out.writeUTF(tag);
+            out.writeLong(from);
+            out.writeInt(page);
+            out.writeBoolean(done);
+            records++;
+        }
+
+        // 这些问题的答案已全部写库
+        public void answersDone(int[] questionIds) throws IOException {
+            out.writeByte(ANSWERS_DONE);
+            writeIds(questionIds);
+            records++;
+        }
+
+        // 这些问题（或答案）的评论已全部写库
+        public void commentsDone(boolean isQuestion, int[] postIds) throws IOException {
+            out.writeByte(COMMENTS_DONE);
+            out.writeBoolean(isQuestion);
+            writeIds(postIds);
+            records++;
+        }
+
+        private void writeIds(int[] ids) throws IOException {
+            out.writeInt(ids.length);
+            for (int id : ids) {
+                out.writeInt(id);
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private final File snapshotFile;
+    private final File logFile;
+    private final int compactThreshold;
+    private Writer writer;
+
+    public ProgressLog(File snapshotFile, File logFile, int compactThreshold) {
+        this.snapshotFile = snapshotFile;
+        this.logFile = logFile;
+        this.compactThreshold = compactThreshold;
+    }
+
+    // 依次重放快照与日志，返回是否读到了任何已有进度
+    public boolean replay(Handler handler) {
+        boolean found = replayFile(snapshotFile, handler);
+        found |= replayFile(logFile, handler);
+        return found;
+    }
+
+    // 打开日志用于追加；若日志不存在或头部损坏则重新创建
+    public void openForAppend() throws IOException {
+        boolean valid = logFile.exists() && hasValidHeader(logFile);
+        FileOutputStream out = new FileOutputStream(logFile, valid);
+        writer = new Writer(out);
+        if (!valid) {
+            writer.out.writeInt(MAGIC);
+            writer.flush();
+        }
+    }
+
+    public Writer writer() {
+        return writer;
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    public boolean needsCompaction() {
+        return writer.records >= compactThreshold;
+    }
+
+    // 把完整状态写成新快照，然后清空日志
+    public void compact(SnapshotSource source) throws IOException {
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+             Writer snapshot = new Writer(fileOut)) {
+            snapshot.out.writeInt(MAGIC);
+            source.writeTo(snapshot);
+            snapshot.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        writer.close();
+        writer = new Writer(new FileOutputStream(logFile, false));
+        writer.out.writeInt(MAGIC);
+        writer.flush();
+    }
+
+    @FunctionalInterface
+    public interface SnapshotSource {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private static boolean hasValidHeader(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean replayFile(File file, Handler handler) {
+        if (!file.exists()) {
+            return false;
+        }
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                logger.warn("Ignoring progress file with unknown format: {}", file);
+                return false;
+            }
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                }
+                switch (type) {
+                    case STATS -> handler.onStats(in.readInt(), in.readInt(), in.readInt());
+                    case PAGE -> handler.onPage(in.readInt());
+                    case STATE -> handler.onState(CollectionState.fromString(in.readUTF()));
+                    case QUESTION -> handler.onQuestion(in.readInt());
+                    case ANSWER -> handler.onAnswer(in.readInt(), in.readInt());
+                    case COMMENT -> handler.onComment(in.readInt(), in.readBoolean(), in.readInt());
+                    case BATCH -> {
+                        int batchIndex = in.readInt();
+                        handler.onBatch(batchIndex, readIds(in));
+                    }
+                    case WINDOW -> handler.onWindow(in.readUTF(), in.readLong(), in.readLong(), in.readInt());
+                    case WINDOW_PAGE -> handler.onWindowPage(in.readUTF(), in.readLong(), in.readInt(),
+                            in.readBoolean());
+                    case ANSWERS_DONE -> handler.onAnswersDone(readIds(in));
+                    case COMMENTS_DONE -> {
+                        boolean isQuestion = in.readBoolean();
+                        handler.onCommentsDone(isQuestion, readIds(in));
+                    }
+                    default -> throw new IOException("Unknown progress record type " + type);
+                }
+                records++;
+            }
+        } catch (EOFException e) {
+            // 进程崩溃时最后一条记录可能只写了一半，丢弃即可
+            logger.warn("Progress file {} ends with a truncated record, ignoring it", file);
+        } catch (IOException e) {
+            logger.error("Failed to replay progress file {} after {} records", file, records, e);
+        }
+        logger.info("Replayed {} progress records from {}", records, file);
+        return true;
+    }
+
+    private static int[] readIds(DataInputStream in) throws IOException {
+        int[] ids = new int[in.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readInt();
+        }
+        return ids;
+    }
+}
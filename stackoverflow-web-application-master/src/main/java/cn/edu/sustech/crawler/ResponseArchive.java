@@ -0,0 +1,285 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * API 原始响应的本地归档。
+ * 每个响应单独压缩成一个 gzip 成员，顺序追加到分段文件 segment-NNNNN.gz 中；
+ * index.tsv 按 "endpoint?params" 记录响应所在的分段、偏移和长度，同一请求重复归档时以最后一条为准。
+ * 回放模式下 ApiClient 直接从归档读取响应，不访问网络也不消耗配额。
+ * 请求参数中取决于当前时间的值（例如采集的截止时间）由 pin 固定在 pins.tsv 中，回放时发出与记录时相同的请求。
+ * 固定值只在一次采集内有效：开始新的采集时由调用方 unpin，续传时沿用；回放时只读不改。
+ */
+public class ResponseArchive implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseArchive.class);
+    private static final String INDEX_FILE = "index.tsv";
+    private static final String PINS_FILE = "pins.tsv";
+
+    // 响应在分段文件中的位置
+    private record Entry(int segment, long offset, int length) {
+    }
+
+    private final File directory;
+    private final boolean replay;
+    private final long segmentBytes;
+    private final Map<String, Entry> index = new HashMap<>();
+    private final Map<String, Long> pins = new LinkedHashMap<>();
+
+    private int segment;
+    private long segmentLength;
+    private OutputStream segmentOut;
+    private Writer indexOut;
+
+    private ResponseArchive(File directory, boolean replay, long segmentBytes) {
+        this.directory = directory;
+        this.replay = replay;
+        this.segmentBytes = segmentBytes;
+    }
+
+    // 打开归档用于记录，已有内容会保留，新响应写入新的分段
+    public static ResponseArchive openForRecording(File directory) {
+        return openForRecording(directory, ApiConfig.ARCHIVE_SEGMENT_BYTES);
+    }
+
+    static ResponseArchive openForRecording(File directory, long segmentBytes) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new ApiException("Cannot create archive directory " + directory);
+        }
+        ResponseArchive archive = new ResponseArchive(directory, false, segmentBytes);
+        archive.loadIndex();
+        archive.loadPins();
+        archive.segment = archive.index.values().stream().mapToInt(Entry::segment).max().orElse(0);
+        try {
+            archive.indexOut = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(new File(directory, INDEX_FILE), true), StandardCharsets.UTF_8));
+            archive.rollSegment();
+        } catch (IOException e) {
+            throw new ApiException("Failed to open archive " + directory, e);
+        }
+        return archive;
+    }
+
+    // 打开归档用于回放
+    public static ResponseArchive openForReplay(File directory) {
+        if (!new File(directory, INDEX_FILE).isFile()) {
+            throw new ApiException("No response archive found in " + directory);
+        }
+        ResponseArchive archive = new ResponseArchive(directory, true, 0);
+        archive.loadIndex();
+        archive.loadPins();
+        return archive;
+    }
+
+    public boolean isReplay() {
+        return replay;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public static String keyOf(String endpoint, String params) {
+        return endpoint + "?" + params;
+    }
+
+    // 追加一条已压缩的响应，先写数据再写索引，崩溃时最多丢失最后一条
+    public synchronized void append(String key, byte[] compressed) throws IOException {
+        if (segmentLength > 0 && segmentLength + compressed.length > segmentBytes) {
+            rollSegment();
+        }
+        segmentOut.write(compressed);
+        segmentOut.flush();
+        index.put(key, new Entry(segment, segmentLength, compressed.length));
+        indexOut.write(key + "\t" + segment + "\t" + segmentLength + "\t" + compressed.length + "\n");
+        indexOut.flush();
+        segmentLength += compressed.length;
+    }
+
+    // 返回解压后的响应流，归档中没有该请求时返回 null
+    public InputStream open(String key) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = index.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        byte[] compressed = new byte[entry.length()];
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile(entry.segment()), "r")) {
+            file.seek(entry.offset());
+            file.readFully(compressed);
+        }
+        return new GZIPInputStream(new ByteArrayInputStream(compressed), 1 << 16);
+    }
+
+    // 返回归档中名为 name 的固定值；记录时若还没有则取 value 的结果写入，直到 unpin 之前的记录与回放都沿用它
+    public synchronized long pin(String name, LongSupplier value) {
+        Long pinned = pins.get(name);
+        if (pinned != null) {
+            return pinned;
+        }
+        if (replay) {
+            throw new ApiException("Archive " + directory + " has no pinned value for " + name);
+        }
+        long current = value.getAsLong();
+        pins.put(name, current);
+        savePins();
+        return current;
+    }
+
+    // 记录时丢弃名为 name 的固定值，下一次 pin 重新取值；回放时归档只读，什么也不做
+    public synchronized void unpin(String name) {
+        if (!replay && pins.remove(name) != null) {
+            savePins();
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    // 包装响应流：解析器读取的同时压缩一份副本，解析完成后由 finish() 取出
+    public static Recording record(InputStream in) throws IOException {
+        return new Recording(in);
+    }
+
+    public static final class Recording extends FilterInputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final GZIPOutputStream gzip;
+
+        private Recording(InputStream in) throws IOException {
+            super(in);
+            this.gzip = new GZIPOutputStream(buffer, 1 << 16);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                gzip.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                gzip.write(b, off, n);
+            }
+            return n;
+        }
+
+        // 解析器结束时会关闭输入流，此时还要读取剩余内容；原始响应由调用方关闭
+        @Override
+        public void close() {
+        }
+
+        // 解析器可能没有读到流末尾，先把剩余内容读完再结束压缩
+        public byte[] finish() throws IOException {
+            byte[] rest = new byte[8192];
+            while (read(rest, 0, rest.length) >= 0) {
+                // 继续读取
+            }
+            gzip.finish();
+            return buffer.toByteArray();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segmentOut != null) {
+            segmentOut.close();
+        }
+        if (indexOut != null) {
+            indexOut.close();
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        if (segmentOut != null) {
+            segmentOut.close();
+        }
+        segment++;
+        segmentLength = 0;
+        segmentOut = new BufferedOutputStream(new FileOutputStream(segmentFile(segment)), 1 << 16);
+        logger.info("Archiving responses to {}", segmentFile(segment));
+    }
+
+    private File segmentFile(int segment) {
+        return new File(directory, String.format("segment-%05d.gz", segment));
+    }
+
+    private void loadIndex() {
+        File indexFile = new File(directory, INDEX_FILE);
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length != 4) {
+                    // 崩溃时写了一半的索引行
+                    continue;
+                }
+                index.put(parts[0], new Entry(Integer.parseInt(parts[1]),
+                        Long.parseLong(parts[2]), Integer.parseInt(parts[3])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new ApiException("Failed to read archive index " + indexFile, e);
+        }
+        logger.info("Loaded {} archived responses from {}", index.size(), directory);
+    }
+
+    // 固定值很少，每次变化都整体重写，先写临时文件再替换，崩溃时不会留下半个文件
+    private void savePins() {
+        File pinsFile = new File(directory, PINS_FILE);
+        File tempFile = new File(directory, PINS_FILE + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> pin : pins.entrySet()) {
+                out.write(pin.getKey() + "\t" + pin.getValue() + "\n");
+            }
+        } catch (IOException e) {
+            throw new ApiException("Failed to write archive pins " + pinsFile, e);
+        }
+        try {
+            Files.move(tempFile.toPath(), pinsFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ApiException("Failed to write archive pins " + pinsFile, e);
+        }
+    }
+
+    private void loadPins() {
+        File pinsFile = new File(directory, PINS_FILE);
+        if (!pinsFile.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(pinsFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length == 2) {
+                    pins.put(parts[0], Long.parseLong(parts[1]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new ApiException("Failed to read archive pins " + pinsFile, e);
+        }
+    }
+}
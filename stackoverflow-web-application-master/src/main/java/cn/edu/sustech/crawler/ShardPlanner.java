@@ -0,0 +1,95 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 按 creation_date 把某个标签下的问题切分成若干时间窗口，每个窗口的问题数不超过 maxItems，
+ * 窗口内按创建时间顺序分页，页码永远不会超过上限，窗口之间互不重叠，可以并行抓取。
+ * 窗口的问题数用 filter=total 请求查询；超出上限的窗口按问题数估算份数后等分时间，再逐份检查，直到全部满足上限。
+ * 规划本身也作为流水线任务执行，每确定一个窗口立即交给调用方，抓取不必等待全部规划完成。
+ * 增量采集使用同样的规划，只是计数器只统计水位线之后有活动的问题。
+ */
+public class ShardPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(ShardPlanner.class);
+
+    /**
+     * 标签 tag 下 creation_date 落在 [from, to) 内的问题，时间为 Unix 秒；total 为规划时查询到的问题数。
+     */
+    public record Window(String tag, long from, long to, int total) {
+        // 按 pageSize 分页后的页数
+        public int pages(int pageSize) {
+            return (total + pageSize - 1) / pageSize;
+        }
+    }
+
+    // 查询标签 tag 下 creation_date 落在 [from, to) 内的问题数
+    @FunctionalInterface
+    public interface Counter {
+        int count(String tag, long from, long to);
+    }
+
+    private final Counter counter;
+    private final int maxItems;
+
+    public ShardPlanner(Counter counter, int maxItems) {
+        this.counter = counter;
+        this.maxItems = maxItems;
+    }
+
+    // 在流水线中规划 [from, to)，每确定一个窗口就交给 accepted（可能在多个线程上调用）
+    public void plan(CrawlPipeline pipeline, String tag, long from, long to, Consumer<Window> accepted) {
+        if (from >= to) {
+            return;
+        }
+        pipeline.submit("plan", () -> split(pipeline, tag, from, to, counter.count(tag, from, to), accepted));
+    }
+
+    private void split(CrawlPipeline pipeline, String tag, long from, long to, int total, Consumer<Window> accepted) {
+        // 一秒内的问题无法再切分，只能整体接受
+        if (total <= maxItems || to - from <= 1) {
+            if (total > maxItems) {
+                logger.warn("Window [{}, {}) of tag {} has {} questions, exceeding the limit of {}",
+                        from, to, tag, total, maxItems);
+            }
+            accepted.accept(new Window(tag, from, to, total));
+            return;
+        }
+        // 问题在时间上分布不均，多切一倍，减少再次切分的次数
+        long pieces = Math.min(to - from, 2L * ((total + maxItems - 1) / maxItems));
+        long step = (to - from + pieces - 1) / pieces;
+        for (long start = from; start < to; start += step) {
+            long pieceFrom = start;
+            long pieceTo = Math.min(to, start + step);
+            pipeline.submit("plan", () -> split(pipeline, tag, pieceFrom, pieceTo,
+                    counter.count(tag, pieceFrom, pieceTo), accepted));
+        }
+    }
+
+    // [from, to) 中没有被 covered 覆盖的区间，用于续传时只规划剩下的部分
+    public static List<long[]> gaps(long from, long to, List<Window> covered) {
+        List<Window> sorted = new ArrayList<>(covered);
+        sorted.sort(Comparator.comparingLong(Window::from));
+        List<long[]> gaps = new ArrayList<>();
+        long next = from;
+        for (Window window : sorted) {
+            if (window.from() > next) {
+                gaps.add(new long[]{next, Math.min(window.from(), to)});
+            }
+            next = Math.max(next, window.to());
+            if (next >= to) {
+                break;
+            }
+        }
+        if (next < to) {
+            gaps.add(new long[]{next, to});
+        }
+        gaps.removeIf(gap -> gap[0] >= gap[1]);
+        return gaps;
+    }
+}
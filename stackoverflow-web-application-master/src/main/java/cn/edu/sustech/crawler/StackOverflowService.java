@@ -1,12 +1,13 @@
 package cn.edu.sustech.crawler;
 
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 public class StackOverflowService {
     private static final Logger logger = LoggerFactory.getLogger(StackOverflowService.class);
@@ -14,77 +15,97 @@ public class StackOverflowService {
     private final int pageSize;
 
     public StackOverflowService(int pageSize) {
-        this.apiClient = new ApiClient();
+        this(new ApiClient(), pageSize);
+    }
+
+    public StackOverflowService(ApiClient apiClient, int pageSize) {
+        this.apiClient = apiClient;
         this.pageSize = pageSize;
     }
 
-    public JSONObject getQuestionStats() {
+    // 归档记录与回放时固定在归档中的值，见 ApiClient.pin
+    public long pin(String name, LongSupplier value) {
+        return apiClient.pin(name, value);
+    }
+
+    public void unpin(String name) {
+        apiClient.unpin(name);
+    }
+
+    public int getQuestionTotal() {
         String params = "filter=total&tagged=java";
-        return apiClient.executeRequest("questions", params);
+        return apiClient.executeRequest("questions", params).getTotal();
     }
 
-    public JSONObject getNoAnswerStats() {
+    public int getNoAnswerTotal() {
         String params = "filter=total&tagged=java";
-        return apiClient.executeRequest("questions/no-answers", params);
+        return apiClient.executeRequest("questions/no-answers", params).getTotal();
+    }
+
+    // 标签 tag 下 creation_date 落在 [from, to) 内的问题数；API 的 fromdate 与 todate 都包含端点
+    public int countQuestions(String tag, long from, long to) {
+        String params = String.format("filter=total&tagged=%s&fromdate=%d&todate=%d", tag, from, to - 1);
+        return apiClient.executeRequest("questions", params).getTotal();
     }
 
-    public List<JSONObject> getQuestions(int page) {
-        String params = String.format("page=%d&pagesize=%d&order=desc&sort=activity&tagged=java&filter=withbody",
-                page, pageSize);
-        JSONObject response = apiClient.executeRequest("questions", params);
-        return extractItems(response);
+    // 窗口内的问题按创建时间升序分页，新问题只会落在更晚的窗口，页面内容不会随采集推移；
+    // 每解析出一个问题就交给 consumer，返回是否还有下一页
+    public boolean getQuestions(ShardPlanner.Window window, int page, Consumer<JSONObject> consumer) {
+        String params = String.format(
+                "page=%d&pagesize=%d&order=asc&sort=creation&tagged=%s&fromdate=%d&todate=%d&filter=withbody",
+                page, pageSize, window.tag(), window.from(), window.to() - 1);
+        return apiClient.streamRequest("questions", params, consumer).hasMore();
     }
 
-    public List<JSONObject> getAnswers(List<Integer> questionIds) {
+    // 标签 tag 下 creation_date 落在 [from, to) 内、since（Unix 秒）之后有活动的问题数；min 作用于排序字段 activity
+    public int countActiveQuestions(String tag, long from, long to, long since) {
+        String params = String.format("filter=total&sort=activity&min=%d&tagged=%s&fromdate=%d&todate=%d",
+                since, tag, from, to - 1);
+        return apiClient.executeRequest("questions", params).getTotal();
+    }
+
+    // 增量采集：窗口内 since 之后有活动的问题，按活动时间倒序。采集期间又有活动的问题会移到第一页，
+    // 排在它前面的问题只会后移、重复出现而不会被跳过；移走的问题由下一次增量采集抓到
+    public boolean getActiveQuestions(ShardPlanner.Window window, long since, int page, Consumer<JSONObject> consumer) {
+        String params = String.format(
+                "page=%d&pagesize=%d&order=desc&sort=activity&min=%d&tagged=%s&fromdate=%d&todate=%d&filter=withbody",
+                page, pageSize, since, window.tag(), window.from(), window.to() - 1);
+        return apiClient.streamRequest("questions", params, consumer).hasMore();
+    }
+
+    public void getAnswers(List<Integer> questionIds, Consumer<JSONObject> consumer) {
         if (questionIds.isEmpty()) {
-            return new ArrayList<>();
+            return;
         }
 
         // 直到has_more为false
-        List<JSONObject> answers = new ArrayList<>();
+        String ids = joinIds(questionIds);
         int page = 1;
-        JSONObject response;
+        ApiResponseMeta response;
         do {
-            String ids = String.join(";", questionIds.stream().map(String::valueOf).toArray(String[]::new));
             String params = String.format("page=%d&pagesize=%d&filter=withbody&order=desc&sort=activity",
                     page++, pageSize);
-            response = apiClient.executeRequest("questions/" + ids + "/answers", params);
-            answers.addAll(extractItems(response));
-        } while (response.getBoolean("has_more"));
-
-        return answers;
+            response = apiClient.streamRequest("questions/" + ids + "/answers", params, consumer);
+        } while (response.hasMore());
     }
 
-    public List<JSONObject> getComments(String type, List<Integer> ids) {
+    public void getComments(String type, List<Integer> ids, Consumer<JSONObject> consumer) {
         if (ids.isEmpty()) {
-            return new ArrayList<>();
+            return;
         }
 
-        List<JSONObject> comments = new ArrayList<>();
+        String idsStr = joinIds(ids);
+        String endpoint = type.equals("question") ? "questions/" : "answers/";
         int page = 1;
-        JSONObject response;
+        ApiResponseMeta response;
         do {
-            String idsStr = String.join(";", ids.stream().map(String::valueOf).toArray(String[]::new));
-            String endpoint = type.equals("question") ? "questions/" : "answers/";
             String params = String.format("page=%d&pagesize=%d&filter=withbody&order=desc&sort=creation",
                     page++, pageSize);
-            response = apiClient.executeRequest(endpoint + idsStr + "/comments", params);
-            comments.addAll(extractItems(response));
-        } while (response.getBoolean("has_more"));
-
-        return comments;
+            response = apiClient.streamRequest(endpoint + idsStr + "/comments", params, consumer);
+        } while (response.hasMore());
     }
 
-    private List<JSONObject> extractItems(JSONObject response) {
-        List<JSONObject> items = new ArrayList<>();
-        JSONArray itemsArray = response.getJSONArray("items");
-
-        if (itemsArray != null) {
-            for (int i = 0; i < itemsArray.size(); i++) {
-                items.add(itemsArray.getJSONObject(i));
-            }
-        }
-
-        return items;
+    private static String joinIds(List<Integer> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(";"));
     }
-}
\ No newline at end of file
+}
@@ -6,13 +6,12 @@ import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
-public class StanfordCoreNLPService {
+public class StanfordCoreNLPService implements JavaApiExtractor {
     private final StanfordCoreNLP pipeline;
 
     public StanfordCoreNLPService() {
@@ -23,22 +22,23 @@ public class StanfordCoreNLPService {
         pipeline = new StanfordCoreNLP(props);
     }
 
+    // 可被多个抽取线程同时调用；并行度由调用方的线程池提供，单个帖子内部顺序计数
+    @Override
     public Map<String, Integer> getAllJavaAPI(String htmlText) {
-        ConcurrentMap<String, Integer> javaAPIs = new ConcurrentHashMap<>();
+        Map<String, Integer> javaAPIs = new HashMap<>();
         Annotation annotation = new Annotation(htmlText);
         pipeline.annotate(annotation);
         List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
 
-        sentences.parallelStream().forEach(sentence -> {
+        for (CoreMap sentence : sentences) {
             List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
             for (CoreLabel token : tokens) {
                 String word = token.get(CoreAnnotations.TextAnnotation.class);
                 if (word.startsWith("java.")) {
-                    // 使用同步块来保证线程安全
-                    javaAPIs.put(word, javaAPIs.getOrDefault(word, 0) + 1);
+                    javaAPIs.merge(word, 1, Integer::sum);
                 }
             }
-        });
+        }
 
         return javaAPIs;
     }
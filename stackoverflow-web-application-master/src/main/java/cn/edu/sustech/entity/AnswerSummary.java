@@ -0,0 +1,67 @@
+package cn.edu.sustech.entity;
+
+import java.util.Date;
+
+// 统计查询用的答案投影，不含 body 等大字段
+public class AnswerSummary {
+
+  private int answerId;
+
+  private int questionId;
+
+  private Date creationDate;
+
+  private int score;
+
+  private boolean accepted;
+
+  private int accountId;
+
+  public int getAnswerId() {
+    return answerId;
+  }
+
+  public void setAnswerId(int answerId) {
+    this.answerId = answerId;
+  }
+
+  public int getQuestionId() {
+    return questionId;
+  }
+
+  public void setQuestionId(int questionId) {
+    this.questionId = questionId;
+  }
+
+  public Date getCreationDate() {
+    return creationDate;
+  }
+
+  public void setCreationDate(Date creationDate) {
+    this.creationDate = creationDate;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public void setScore(int score) {
+    this.score = score;
+  }
+
+  public boolean isAccepted() {
+    return accepted;
+  }
+
+  public void setAccepted(boolean accepted) {
+    this.accepted = accepted;
+  }
+
+  public int getAccountId() {
+    return accountId;
+  }
+
+  public void setAccountId(int accountId) {
+    this.accountId = accountId;
+  }
+}
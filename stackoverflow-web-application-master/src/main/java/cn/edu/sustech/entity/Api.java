@@ -1,14 +1,26 @@
 package cn.edu.sustech.entity;
 
 import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 
 @TableName("api")
 public class Api {
 
+  @TableId("api_id")
+  private Integer apiId;
+
   @TableField("api_name")
   private String apiName;
 
+  public Integer getApiId() {
+    return apiId;
+  }
+
+  public void setApiId(Integer apiId) {
+    this.apiId = apiId;
+  }
+
   public String getApiName() {
     return apiName;
   }
@@ -9,8 +9,8 @@ public class CommentApiCount {
   @TableField("comment_id")
   private int commentId;
 
-  @TableField("api_name")
-  private String apiName;
+  @TableField("api_id")
+  private int apiId;
 
   @TableField("count")
   private int count;
@@ -23,12 +23,12 @@ public class CommentApiCount {
     this.commentId = commentId;
   }
 
-  public String getApiName() {
-    return apiName;
+  public int getApiId() {
+    return apiId;
   }
 
-  public void setApiName(String apiName) {
-    this.apiName = apiName;
+  public void setApiId(int apiId) {
+    this.apiId = apiId;
   }
 
   public int getCount() {
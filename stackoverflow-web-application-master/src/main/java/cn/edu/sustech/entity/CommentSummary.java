@@ -0,0 +1,78 @@
+package cn.edu.sustech.entity;
+
+import java.util.Date;
+
+// 统计查询用的评论投影，不含 body 等大字段
+public class CommentSummary {
+
+  private int commentId;
+
+  private int postId;
+
+  private Date creationDate;
+
+  private int score;
+
+  private int accountId;
+
+  // 评论挂在答案下时为该答案所属的问题与作者，挂在问题下时为 null
+  private Integer answerQuestionId;
+
+  private Integer answerAccountId;
+
+  public int getCommentId() {
+    return commentId;
+  }
+
+  public void setCommentId(int commentId) {
+    this.commentId = commentId;
+  }
+
+  public int getPostId() {
+    return postId;
+  }
+
+  public void setPostId(int postId) {
+    this.postId = postId;
+  }
+
+  public Date getCreationDate() {
+    return creationDate;
+  }
+
+  public void setCreationDate(Date creationDate) {
+    this.creationDate = creationDate;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public void setScore(int score) {
+    this.score = score;
+  }
+
+  public int getAccountId() {
+    return accountId;
+  }
+
+  public void setAccountId(int accountId) {
+    this.accountId = accountId;
+  }
+
+  public Integer getAnswerQuestionId() {
+    return answerQuestionId;
+  }
+
+  public void setAnswerQuestionId(Integer answerQuestionId) {
+    this.answerQuestionId = answerQuestionId;
+  }
+
+  public Integer getAnswerAccountId() {
+    return answerAccountId;
+  }
+
+  public void setAnswerAccountId(Integer answerAccountId) {
+    this.answerAccountId = answerAccountId;
+  }
+}
@@ -9,8 +9,8 @@ public class QuestionApiCount {
   @TableField("question_id")
   private int questionId;
 
-  @TableField("api_name")
-  private String apiName;
+  @TableField("api_id")
+  private int apiId;
 
   @TableField("count")
   private int count;
@@ -23,12 +23,12 @@ public class QuestionApiCount {
     this.questionId = questionId;
   }
 
-  public String getApiName() {
-    return apiName;
+  public int getApiId() {
+    return apiId;
   }
 
-  public void setApiName(String apiName) {
-    this.apiName = apiName;
+  public void setApiId(int apiId) {
+    this.apiId = apiId;
   }
 
   public int getCount() {
@@ -0,0 +1,67 @@
+package cn.edu.sustech.entity;
+
+import java.util.Date;
+
+// 统计查询用的问题投影，不含 body、title、link 等大字段
+public class QuestionSummary {
+
+  private int questionId;
+
+  private Date creationDate;
+
+  private int score;
+
+  private int answerCount;
+
+  private int viewCount;
+
+  private int accountId;
+
+  public int getQuestionId() {
+    return questionId;
+  }
+
+  public void setQuestionId(int questionId) {
+    this.questionId = questionId;
+  }
+
+  public Date getCreationDate() {
+    return creationDate;
+  }
+
+  public void setCreationDate(Date creationDate) {
+    this.creationDate = creationDate;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public void setScore(int score) {
+    this.score = score;
+  }
+
+  public int getAnswerCount() {
+    return answerCount;
+  }
+
+  public void setAnswerCount(int answerCount) {
+    this.answerCount = answerCount;
+  }
+
+  public int getViewCount() {
+    return viewCount;
+  }
+
+  public void setViewCount(int viewCount) {
+    this.viewCount = viewCount;
+  }
+
+  public int getAccountId() {
+    return accountId;
+  }
+
+  public void setAccountId(int accountId) {
+    this.accountId = accountId;
+  }
+}
@@ -1,13 +1,25 @@
 package cn.edu.sustech.entity;
 
 import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 
 @TableName("tag")
 public class Tag {
+  @TableId("tag_id")
+  private Integer tagId;
+
   @TableField("tag_name")
   private String tagName;
 
+  public Integer getTagId() {
+    return tagId;
+  }
+
+  public void setTagId(Integer tagId) {
+    this.tagId = tagId;
+  }
+
   public String getTagName() {
     return tagName;
   }
@@ -6,18 +6,22 @@ import com.baomidou.mybatisplus.annotation.TableName;
 @TableName("connection_tag_and_question")
 public class TagConnect {
 
-  @TableField("tag_name")
-  private String tagName;
+  @TableField("tag_id")
+  private Integer tagId;
 
   @TableField("question_id")
   private Integer questionId;
 
-  public String getTagName() {
-    return tagName;
+  // 关联 tag 表查询时填充
+  @TableField(exist = false)
+  private String tagName;
+
+  public Integer getTagId() {
+    return tagId;
   }
 
-  public void setTagName(String tagName) {
-    this.tagName = tagName;
+  public void setTagId(Integer tagId) {
+    this.tagId = tagId;
   }
 
   public Integer getQuestionId() {
@@ -27,4 +31,12 @@ public class TagConnect {
   public void setQuestionId(Integer questionId) {
     this.questionId = questionId;
   }
+
+  public String getTagName() {
+    return tagName;
+  }
+
+  public void setTagName(String tagName) {
+    this.tagName = tagName;
+  }
 }
@@ -1,8 +1,20 @@
 package cn.edu.sustech.mapper;
 
 import cn.edu.sustech.entity.Answer;
+import cn.edu.sustech.entity.AnswerSummary;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
 
 @Mapper
-public interface AnswerMapper extends BaseMapper<Answer> {}
+public interface AnswerMapper extends BaseMapper<Answer> {
+
+  @Select(
+      "SELECT answer_id, question_id, creation_date, score, is_accepted AS accepted, account_id"
+          + " FROM answer WHERE creation_date BETWEEN #{from} AND #{end}")
+  List<AnswerSummary> selectSummaries(@Param("from") Date from, @Param("end") Date end);
+}
@@ -0,0 +1,35 @@
+package cn.edu.sustech.mapper;
+
+import cn.edu.sustech.entity.Api;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+@Mapper
+public interface ApiMapper extends BaseMapper<Api> {
+
+  // 时间范围内创建的问题、回答、评论中每个 API 的出现次数，先按整数 api_id 汇总再关联出名字；
+  // 带 LIMIT 时 PostgreSQL 用有界堆排序只保留前 limit 个，limit 为 null 时返回全部
+  @Select(
+      "SELECT a.api_name AS api, s.count FROM api a JOIN"
+          + " (SELECT u.api_id, sum(u.count) AS count FROM ("
+          + " SELECT c.api_id, c.count FROM connection_question_and_api c"
+          + " JOIN question q ON q.question_id = c.question_id"
+          + " WHERE q.creation_date >= #{from} AND q.creation_date <= #{end}"
+          + " UNION ALL SELECT c.api_id, c.count FROM connection_answer_and_api c"
+          + " JOIN answer p ON p.answer_id = c.answer_id"
+          + " WHERE p.creation_date >= #{from} AND p.creation_date <= #{end}"
+          + " UNION ALL SELECT c.api_id, c.count FROM connection_comment_and_api c"
+          + " JOIN comment p ON p.comment_id = c.comment_id"
+          + " WHERE p.creation_date >= #{from} AND p.creation_date <= #{end}"
+          + ") u GROUP BY u.api_id) s ON s.api_id = a.api_id"
+          + " ORDER BY s.count DESC"
+          + " LIMIT #{limit,jdbcType=INTEGER}")
+  List<Map<String, Object>> selectApiCountsInRange(
+      @Param("from") Date from, @Param("end") Date end, @Param("limit") Integer limit);
+}
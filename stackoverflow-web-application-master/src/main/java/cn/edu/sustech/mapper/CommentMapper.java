@@ -1,8 +1,23 @@
 package cn.edu.sustech.mapper;
 
 import cn.edu.sustech.entity.Comment;
+import cn.edu.sustech.entity.CommentSummary;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
 
 @Mapper
-public interface CommentMapper extends BaseMapper<Comment> {}
+public interface CommentMapper extends BaseMapper<Comment> {
+
+  // 同时带出评论所在答案的问题与作者，调用方不必再逐条查询答案
+  @Select(
+      "SELECT c.comment_id, c.post_id, c.creation_date, c.score, c.account_id,"
+          + " a.question_id AS answer_question_id, a.account_id AS answer_account_id"
+          + " FROM comment c LEFT JOIN answer a ON a.answer_id = c.post_id"
+          + " WHERE c.creation_date BETWEEN #{from} AND #{end}")
+  List<CommentSummary> selectSummaries(@Param("from") Date from, @Param("end") Date end);
+}
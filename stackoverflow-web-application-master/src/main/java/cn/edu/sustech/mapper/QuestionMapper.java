@@ -1,8 +1,71 @@
 package cn.edu.sustech.mapper;
 
 import cn.edu.sustech.entity.Question;
+import cn.edu.sustech.entity.QuestionSummary;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
-public interface QuestionMapper extends BaseMapper<Question> {}
+public interface QuestionMapper extends BaseMapper<Question> {
+
+  String IN_RANGE = " WHERE creation_date >= #{from} AND creation_date <= #{end}";
+
+  @Select(
+      "SELECT question_id, creation_date, score, answer_count, view_count, account_id FROM question"
+          + IN_RANGE)
+  List<QuestionSummary> selectSummaries(@Param("from") Date from, @Param("end") Date end);
+
+  @Select("SELECT count(*) FROM question" + IN_RANGE)
+  int countInRange(@Param("from") Date from, @Param("end") Date end);
+
+  @Select("SELECT count(*) FROM question" + IN_RANGE + " AND answer_count = 0")
+  int countNoAnswer(@Param("from") Date from, @Param("end") Date end);
+
+  @Select("SELECT count(*) FROM question" + IN_RANGE + " AND answer_count > 0")
+  int countWithAnswer(@Param("from") Date from, @Param("end") Date end);
+
+  @Select("SELECT coalesce(sum(answer_count), 0) FROM question" + IN_RANGE)
+  long sumAnswerCount(@Param("from") Date from, @Param("end") Date end);
+
+  @Select("SELECT coalesce(max(answer_count), 0) FROM question" + IN_RANGE)
+  int maxAnswerCount(@Param("from") Date from, @Param("end") Date end);
+
+  @Select(
+      "SELECT answer_count, count(*) AS count FROM question"
+          + IN_RANGE
+          + " GROUP BY answer_count ORDER BY answer_count")
+  List<Map<String, Object>> selectAnswerCountDistribution(
+      @Param("from") Date from, @Param("end") Date end);
+
+  @Select(
+      "SELECT count(*) FROM question q"
+          + " WHERE q.creation_date >= #{from} AND q.creation_date <= #{end}"
+          + " AND EXISTS (SELECT 1 FROM answer a WHERE a.question_id = q.question_id AND a.is_accepted)")
+  int countWithAcceptedAnswer(@Param("from") Date from, @Param("end") Date end);
+
+  // 已有回答、存在采纳答案，且未采纳答案的最高分（至少按 0 计）高于采纳答案的问题数
+  @Select(
+      "SELECT count(*) FROM (SELECT a.question_id FROM answer a"
+          + " JOIN question q ON q.question_id = a.question_id"
+          + " WHERE q.creation_date >= #{from} AND q.creation_date <= #{end} AND q.answer_count > 0"
+          + " GROUP BY a.question_id"
+          + " HAVING bool_or(a.is_accepted)"
+          + " AND greatest(0, max(a.score) FILTER (WHERE NOT a.is_accepted))"
+          + " > max(a.score) FILTER (WHERE a.is_accepted)) t")
+  int countBetterThanAccepted(@Param("from") Date from, @Param("end") Date end);
+
+  // 时间范围内创建的采纳答案距问题创建的毫秒数分布
+  @Select(
+      "SELECT (extract(epoch FROM a.creation_date - q.creation_date) * 1000)::bigint AS duration,"
+          + " count(*) AS count FROM answer a JOIN question q ON q.question_id = a.question_id"
+          + " WHERE a.is_accepted AND a.creation_date BETWEEN #{from} AND #{end}"
+          + " GROUP BY 1 ORDER BY 1")
+  List<Map<String, Object>> selectResolutionDistribution(
+      @Param("from") Date from, @Param("end") Date end);
+}
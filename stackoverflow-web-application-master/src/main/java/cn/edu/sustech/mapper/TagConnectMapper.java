@@ -3,6 +3,64 @@ package cn.edu.sustech.mapper;
 import cn.edu.sustech.entity.TagConnect;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
-public interface TagConnectMapper extends BaseMapper<TagConnect> {}
+public interface TagConnectMapper extends BaseMapper<TagConnect> {
+
+  @Select(
+      "SELECT c.tag_id, c.question_id, t.tag_name FROM connection_tag_and_question c"
+          + " JOIN tag t ON t.tag_id = c.tag_id WHERE c.question_id = #{questionId}")
+  List<TagConnect> selectWithNameByQuestionId(@Param("questionId") int questionId);
+
+  // 先按整数 tag_id 分组计数，再关联出标签名
+  @Select(
+      "SELECT t.tag_name, c.count FROM tag t JOIN"
+          + " (SELECT tag_id, count(*) AS count FROM connection_tag_and_question GROUP BY tag_id) c"
+          + " ON c.tag_id = t.tag_id")
+  List<Map<String, Object>> selectTagCounts();
+
+  @Select(
+      "SELECT q.question_id, q.score, q.view_count,"
+          + " string_agg(t.tag_name, ',' ORDER BY t.tag_name) AS tag_group"
+          + " FROM question q JOIN connection_tag_and_question c ON c.question_id = q.question_id"
+          + " JOIN tag t ON t.tag_id = c.tag_id"
+          + " GROUP BY q.question_id, q.score, q.view_count")
+  List<Map<String, Object>> selectTagGroups();
+
+  // 时间范围内每个标签的问题数、分数和与浏览数和；metric 取 count / score / views 决定排序，
+  // excluded 为 null 时不排除任何标签，limit 为 null 时返回全部
+  @Select(
+      "SELECT t.tag_name AS tag, s.count, s.score, s.views FROM tag t JOIN"
+          + " (SELECT c.tag_id, count(*) AS count, sum(q.score) AS score, sum(q.view_count) AS views"
+          + " FROM connection_tag_and_question c JOIN question q ON q.question_id = c.question_id"
+          + " WHERE q.creation_date >= #{from} AND q.creation_date <= #{end}"
+          + " GROUP BY c.tag_id) s ON s.tag_id = t.tag_id"
+          + " WHERE t.tag_name IS DISTINCT FROM #{excluded,jdbcType=VARCHAR}"
+          + " ORDER BY CASE #{metric} WHEN 'score' THEN s.score WHEN 'views' THEN s.views"
+          + " ELSE s.count END DESC"
+          + " LIMIT #{limit,jdbcType=INTEGER}")
+  List<Map<String, Object>> selectTagStatsInRange(
+      @Param("from") Date from,
+      @Param("end") Date end,
+      @Param("excluded") String excluded,
+      @Param("metric") String metric,
+      @Param("limit") Integer limit);
+
+  // 时间范围内每个问题的分数、浏览数和按名字排序的标签组，一次查询取代逐个问题查标签
+  @Select(
+      "SELECT q.question_id, q.score, q.view_count,"
+          + " string_agg(t.tag_name, ',' ORDER BY t.tag_name) AS tag_group"
+          + " FROM question q JOIN connection_tag_and_question c ON c.question_id = q.question_id"
+          + " JOIN tag t ON t.tag_id = c.tag_id"
+          + " WHERE q.creation_date >= #{from} AND q.creation_date <= #{end}"
+          + " AND t.tag_name IS DISTINCT FROM #{excluded,jdbcType=VARCHAR}"
+          + " GROUP BY q.question_id, q.score, q.view_count")
+  List<Map<String, Object>> selectTagGroupsInRange(
+      @Param("from") Date from, @Param("end") Date end, @Param("excluded") String excluded);
+}
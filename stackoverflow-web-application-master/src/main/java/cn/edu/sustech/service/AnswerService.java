@@ -1,6 +1,7 @@
 package cn.edu.sustech.service;
 
 import cn.edu.sustech.entity.Answer;
+import cn.edu.sustech.entity.AnswerSummary;
 import cn.edu.sustech.mapper.AnswerMapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,5 +48,9 @@ public class AnswerService {
     wrapper.between("creation_date", from, end).eq("is_accepted", true);
     return mapper.selectList(wrapper);
   }
-  
+
+  // 统计用的窄投影，不读取答案正文
+  public List<AnswerSummary> answerSummaries(Date from, Date end) {
+    return mapper.selectSummaries(from, end);
+  }
 }
@@ -1,6 +1,7 @@
 package cn.edu.sustech.service;
 
 import cn.edu.sustech.entity.Comment;
+import cn.edu.sustech.entity.CommentSummary;
 import cn.edu.sustech.mapper.CommentMapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,4 +20,9 @@ public class CommentService {
     wrapper.between("creation_date", from, end);
     return mapper.selectList(wrapper);
   }
+
+  // 统计用的窄投影，不读取评论正文，并带出评论所在答案的问题与作者
+  public List<CommentSummary> commentSummaries(Date from, Date end) {
+    return mapper.selectSummaries(from, end);
+  }
 }
@@ -1,6 +1,7 @@
 package cn.edu.sustech.service;
 
 import cn.edu.sustech.entity.Question;
+import cn.edu.sustech.entity.QuestionSummary;
 import cn.edu.sustech.mapper.QuestionMapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class QuestionService {
@@ -39,4 +41,45 @@ public class QuestionService {
   public Question questionById(int questionID) {
     return mapper.selectById(questionID);
   }
+
+  // 统计用的窄投影，只读 ID、时间、分数、回答数、浏览数和作者
+  public List<QuestionSummary> questionSummaries(Date from, Date end) {
+    return mapper.selectSummaries(from, end);
+  }
+
+  public int countQuestion(Date from, Date end) {
+    return mapper.countInRange(from, end);
+  }
+
+  public int countNoAnswer(Date from, Date end) {
+    return mapper.countNoAnswer(from, end);
+  }
+
+  public int countWithAnswer(Date from, Date end) {
+    return mapper.countWithAnswer(from, end);
+  }
+
+  public long sumAnswerCount(Date from, Date end) {
+    return mapper.sumAnswerCount(from, end);
+  }
+
+  public int maxAnswerCount(Date from, Date end) {
+    return mapper.maxAnswerCount(from, end);
+  }
+
+  public List<Map<String, Object>> answerCountDistribution(Date from, Date end) {
+    return mapper.selectAnswerCountDistribution(from, end);
+  }
+
+  public int countWithAcceptedAnswer(Date from, Date end) {
+    return mapper.countWithAcceptedAnswer(from, end);
+  }
+
+  public int countBetterThanAccepted(Date from, Date end) {
+    return mapper.countBetterThanAccepted(from, end);
+  }
+
+  public List<Map<String, Object>> resolutionDistribution(Date from, Date end) {
+    return mapper.selectResolutionDistribution(from, end);
+  }
 }
@@ -0,0 +1,438 @@
+package cn.edu.sustech.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 标签组合计数：标签名先映射为稠密的 int ID，每个问题只枚举大小为 size 的组合，组合的 ID 按混合进制打包成一个 long 键，
+ * 计入开放寻址的 long 键表，同时累加问题数、分数和浏览数。问题分块并行计数后合并，最后用大小为 limit 的小顶堆取前几名。
+ * 标签种类太多、打包后超出 63 位时，退化为以 ID 串为键的 HashMap。
+ */
+public final class TagCombinationCounter {
+
+  // 每块至少这么多个问题，块太小时并行的开销大于收益
+  private static final int MIN_CHUNK = 2048;
+
+  public enum Metric {
+    COUNT,
+    SCORE,
+    VIEWS
+  }
+
+  // 组合中的标签按名字排序后用逗号连接
+  public record Combination(String tags, long count, long score, long views) {
+
+    public long value(Metric metric) {
+      return switch (metric) {
+        case COUNT -> count;
+        case SCORE -> score;
+        case VIEWS -> views;
+      };
+    }
+  }
+
+  private TagCombinationCounter() {}
+
+  /**
+   * tagLists.get(i) 为第 i 个问题的标签，scores、views 为它的分数与浏览数（为 null 时按 0 计）。
+   * 返回按 metric 降序的组合，limit 不大于 0 时返回全部。
+   */
+  public static List<Combination> count(
+      List<String[]> tagLists, int[] scores, int[] views, int size, Metric metric, int limit) {
+    if (size < 1) {
+      return List.of();
+    }
+    // 只有标签数不少于 size 的问题会产生组合，只给这些问题里的标签编号，让进制尽量小
+    List<String> names = new ArrayList<>();
+    Map<String, Integer> dictionary = new HashMap<>();
+    int[][] posts = new int[tagLists.size()][];
+    for (int i = 0; i < posts.length; i++) {
+      posts[i] = encode(tagLists.get(i), size, dictionary, names);
+    }
+
+    int chunkSize = chunkSize(posts.length);
+    Tally tally =
+        fitsInLong(names.size(), size)
+            ? countPacked(posts, scores, views, size, names.size(), chunkSize)
+            : countFallback(posts, scores, views, size, chunkSize);
+    return tally.top(names, metric, limit);
+  }
+
+  // 去重并排序后的标签 ID；标签数不足 size 时返回空数组
+  private static int[] encode(
+      String[] tags, int size, Map<String, Integer> dictionary, List<String> names) {
+    String[] distinct =
+        Arrays.stream(tags).filter(tag -> !tag.isEmpty()).distinct().toArray(String[]::new);
+    if (distinct.length < size) {
+      return new int[0];
+    }
+    int[] ids = new int[distinct.length];
+    for (int i = 0; i < distinct.length; i++) {
+      ids[i] =
+          dictionary.computeIfAbsent(
+              distinct[i],
+              name -> {
+                names.add(name);
+                return names.size() - 1;
+              });
+    }
+    Arrays.sort(ids);
+    return ids;
+  }
+
+  private static boolean fitsInLong(int radix, int size) {
+    long limit = 1;
+    for (int i = 0; i < size; i++) {
+      if (limit > Long.MAX_VALUE / Math.max(1, radix)) {
+        return false;
+      }
+      limit *= Math.max(1, radix);
+    }
+    return true;
+  }
+
+  private static Tally countPacked(
+      int[][] posts, int[] scores, int[] views, int size, int radix, int chunkSize) {
+    return chunks(posts.length, chunkSize)
+        .map(
+            range -> {
+              LongTally tally = new LongTally(1024);
+              int[] combination = new int[size];
+              for (int i = range[0]; i < range[1]; i++) {
+                int[] ids = posts[i];
+                if (ids.length < size) {
+                  continue;
+                }
+                long score = scores == null ? 0 : scores[i];
+                long view = views == null ? 0 : views[i];
+                first(combination);
+                do {
+                  long key = 0;
+                  for (int index : combination) {
+                    key = key * radix + ids[index];
+                  }
+                  tally.add(key, 1, score, view);
+                } while (next(combination, ids.length));
+              }
+              return tally;
+            })
+        .reduce(LongTally::merge)
+        .map(tally -> (Tally) tally.withRadix(radix, size))
+        .orElseGet(() -> new LongTally(2).withRadix(radix, size));
+  }
+
+  private static Tally countFallback(
+      int[][] posts, int[] scores, int[] views, int size, int chunkSize) {
+    return chunks(posts.length, chunkSize)
+        .map(
+            range -> {
+              StringTally tally = new StringTally();
+              int[] combination = new int[size];
+              StringBuilder key = new StringBuilder();
+              for (int i = range[0]; i < range[1]; i++) {
+                int[] ids = posts[i];
+                if (ids.length < size) {
+                  continue;
+                }
+                long score = scores == null ? 0 : scores[i];
+                long view = views == null ? 0 : views[i];
+                first(combination);
+                do {
+                  key.setLength(0);
+                  for (int index : combination) {
+                    key.append(ids[index]).append(',');
+                  }
+                  tally.add(key.toString(), 1, score, view);
+                } while (next(combination, ids.length));
+              }
+              return tally;
+            })
+        .reduce(StringTally::merge)
+        .map(tally -> (Tally) tally)
+        .orElseGet(StringTally::new);
+  }
+
+  // 各块的 [start, end)，并行处理
+  private static Stream<int[]> chunks(int posts, int chunkSize) {
+    return IntStream.range(0, (posts + chunkSize - 1) / chunkSize)
+        .mapToObj(
+            range -> {
+              int start = range * chunkSize;
+              return new int[] {start, (int) Math.min(posts, (long) start + chunkSize)};
+            })
+        .parallel();
+  }
+
+  private static int chunkSize(int posts) {
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    return Math.max(MIN_CHUNK, (posts + parallelism * 4 - 1) / (parallelism * 4));
+  }
+
+  private static void first(int[] combination) {
+    for (int i = 0; i < combination.length; i++) {
+      combination[i] = i;
+    }
+  }
+
+  // 按字典序推进到下一个组合，已是最后一个时返回 false
+  private static boolean next(int[] combination, int n) {
+    int k = combination.length;
+    int i = k - 1;
+    while (i >= 0 && combination[i] == n - k + i) {
+      i--;
+    }
+    if (i < 0) {
+      return false;
+    }
+    combination[i]++;
+    for (int j = i + 1; j < k; j++) {
+      combination[j] = combination[j - 1] + 1;
+    }
+    return true;
+  }
+
+  // 合并后的计数表：按下标访问每个组合的计数、分数、浏览数与标签 ID
+  private abstract static class Tally {
+
+    abstract int slots();
+
+    abstract boolean occupied(int slot);
+
+    abstract long value(int slot, Metric metric);
+
+    abstract Combination combination(int slot, List<String> names);
+
+    List<Combination> top(List<String> names, Metric metric, int limit) {
+      // 小顶堆中保存下标，堆顶是当前入选组合中最小的一个
+      int capacity = limit > 0 ? limit : slots();
+      int[] heap = new int[Math.max(1, Math.min(capacity, slots()))];
+      int heapSize = 0;
+      for (int slot = 0; slot < slots(); slot++) {
+        if (!occupied(slot)) {
+          continue;
+        }
+        if (heapSize < heap.length) {
+          heap[heapSize] = slot;
+          siftUp(heap, heapSize++, metric);
+        } else if (value(slot, metric) > value(heap[0], metric)) {
+          heap[0] = slot;
+          siftDown(heap, heapSize, metric);
+        }
+      }
+      List<Combination> result = new ArrayList<>(heapSize);
+      for (int i = 0; i < heapSize; i++) {
+        result.add(combination(heap[i], names));
+      }
+      result.sort((a, b) -> Long.compare(b.value(metric), a.value(metric)));
+      return result;
+    }
+
+    private void siftUp(int[] heap, int index, Metric metric) {
+      while (index > 0) {
+        int parent = (index - 1) >>> 1;
+        if (value(heap[parent], metric) <= value(heap[index], metric)) {
+          return;
+        }
+        swap(heap, parent, index);
+        index = parent;
+      }
+    }
+
+    private void siftDown(int[] heap, int size, Metric metric) {
+      int index = 0;
+      while (true) {
+        int smallest = index;
+        for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+          if (value(heap[child], metric) < value(heap[smallest], metric)) {
+            smallest = child;
+          }
+        }
+        if (smallest == index) {
+          return;
+        }
+        swap(heap, smallest, index);
+        index = smallest;
+      }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+      int tmp = heap[a];
+      heap[a] = heap[b];
+      heap[b] = tmp;
+    }
+
+    static Combination combination(
+        int[] ids, List<String> names, long count, long score, long views) {
+      String[] tags = new String[ids.length];
+      for (int i = 0; i < ids.length; i++) {
+        tags[i] = names.get(ids[i]);
+      }
+      Arrays.sort(tags);
+      return new Combination(String.join(",", tags), count, score, views);
+    }
+  }
+
+  // long 键的开放寻址表，计数为 0 的槽位为空
+  private static final class LongTally extends Tally {
+    private long[] keys;
+    private long[] counts;
+    private long[] scores;
+    private long[] views;
+    private int size;
+    private int radix;
+    private int width;
+
+    LongTally(int capacity) {
+      allocate(Integer.highestOneBit(Math.max(2, capacity) - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+      keys = new long[capacity];
+      counts = new long[capacity];
+      scores = new long[capacity];
+      views = new long[capacity];
+    }
+
+    void add(long key, long count, long score, long view) {
+      if (size * 2 >= keys.length) {
+        grow();
+      }
+      int mask = keys.length - 1;
+      int slot = mix(key) & mask;
+      while (counts[slot] != 0 && keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      if (counts[slot] == 0) {
+        keys[slot] = key;
+        size++;
+      }
+      counts[slot] += count;
+      scores[slot] += score;
+      views[slot] += view;
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      long[] oldCounts = counts;
+      long[] oldScores = scores;
+      long[] oldViews = views;
+      allocate(keys.length * 2);
+      size = 0;
+      for (int slot = 0; slot < oldKeys.length; slot++) {
+        if (oldCounts[slot] != 0) {
+          add(oldKeys[slot], oldCounts[slot], oldScores[slot], oldViews[slot]);
+        }
+      }
+    }
+
+    LongTally merge(LongTally other) {
+      LongTally larger = size >= other.size ? this : other;
+      LongTally smaller = larger == this ? other : this;
+      for (int slot = 0; slot < smaller.keys.length; slot++) {
+        if (smaller.counts[slot] != 0) {
+          larger.add(
+              smaller.keys[slot], smaller.counts[slot], smaller.scores[slot], smaller.views[slot]);
+        }
+      }
+      return larger;
+    }
+
+    LongTally withRadix(int radix, int width) {
+      this.radix = radix;
+      this.width = width;
+      return this;
+    }
+
+    @Override
+    int slots() {
+      return keys.length;
+    }
+
+    @Override
+    boolean occupied(int slot) {
+      return counts[slot] != 0;
+    }
+
+    @Override
+    long value(int slot, Metric metric) {
+      return switch (metric) {
+        case COUNT -> counts[slot];
+        case SCORE -> scores[slot];
+        case VIEWS -> views[slot];
+      };
+    }
+
+    @Override
+    Combination combination(int slot, List<String> names) {
+      int[] ids = new int[width];
+      long key = keys[slot];
+      for (int i = width - 1; i >= 0; i--) {
+        ids[i] = (int) (key % radix);
+        key /= radix;
+      }
+      return combination(ids, names, counts[slot], scores[slot], views[slot]);
+    }
+
+    private static int mix(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+
+  // 打包不下时使用的退化表，键为以逗号结尾的标签 ID 串
+  private static final class StringTally extends Tally {
+    private final Map<String, long[]> totals = new HashMap<>();
+    private String[] keys;
+    private long[][] values;
+
+    void add(String key, long count, long score, long view) {
+      long[] total = totals.computeIfAbsent(key, k -> new long[3]);
+      total[0] += count;
+      total[1] += score;
+      total[2] += view;
+    }
+
+    StringTally merge(StringTally other) {
+      other.totals.forEach((key, total) -> add(key, total[0], total[1], total[2]));
+      return this;
+    }
+
+    private void freeze() {
+      if (keys == null) {
+        keys = totals.keySet().toArray(new String[0]);
+        values = new long[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+          values[i] = totals.get(keys[i]);
+        }
+      }
+    }
+
+    @Override
+    int slots() {
+      freeze();
+      return keys.length;
+    }
+
+    @Override
+    boolean occupied(int slot) {
+      return true;
+    }
+
+    @Override
+    long value(int slot, Metric metric) {
+      return values[slot][metric.ordinal()];
+    }
+
+    @Override
+    Combination combination(int slot, List<String> names) {
+      int[] ids = Arrays.stream(keys[slot].split(",")).mapToInt(Integer::parseInt).toArray();
+      long[] total = values[slot];
+      return combination(ids, names, total[0], total[1], total[2]);
+    }
+  }
+}
@@ -8,6 +8,8 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -23,22 +25,62 @@ public class TagService {
   }
 
   public List<Map<String, Object>> tagCounts() {
-    QueryWrapper<TagConnect> wrapper = new QueryWrapper<>();
-    wrapper.select("tag_name", "count(*) as count").groupBy("tag_name");
-    return connectMapper.selectMaps(wrapper);
+    return connectMapper.selectTagCounts();
   }
 
   public List<Map<String, Object>> tagGroups() {
-    QueryWrapper<TagConnect> wrapper = new QueryWrapper<>();
-    wrapper
-        .select("question_id", "string_agg(tag_name, ',' ORDER BY tag_name) as tag_group")
-        .groupBy("question_id");
-    return connectMapper.selectMaps(wrapper);
+    return connectMapper.selectTagGroups();
   }
 
   public List<TagConnect> tagsByQuestionId(int questionID) {
-    QueryWrapper<TagConnect> wrapper = new QueryWrapper<>();
-    wrapper.eq("question_id", questionID);
-    return connectMapper.selectList(wrapper);
+    return connectMapper.selectWithNameByQuestionId(questionID);
+  }
+
+  // metric 为 count、score 或 views，结果按它降序；excluded 为要排除的标签，limit 为 null 时不截断
+  public List<Map<String, Object>> tagStats(
+      Date from, Date end, String excluded, String metric, Integer limit) {
+    return connectMapper.selectTagStatsInRange(from, end, excluded, metric, limit);
+  }
+
+  public List<Map<String, Object>> tagGroups(Date from, Date end, String excluded) {
+    return connectMapper.selectTagGroupsInRange(from, end, excluded);
+  }
+
+  // 所有问题中大小为 size 的标签组合，按 metric 降序，limit 不大于 0 时返回全部
+  public List<TagCombinationCounter.Combination> tagCombinations(
+      int size, TagCombinationCounter.Metric metric, int limit) {
+    return countCombinations(connectMapper.selectTagGroups(), size, metric, limit);
+  }
+
+  public List<TagCombinationCounter.Combination> tagCombinations(
+      Date from,
+      Date end,
+      String excluded,
+      int size,
+      TagCombinationCounter.Metric metric,
+      int limit) {
+    return countCombinations(
+        connectMapper.selectTagGroupsInRange(from, end, excluded), size, metric, limit);
+  }
+
+  private static List<TagCombinationCounter.Combination> countCombinations(
+      List<Map<String, Object>> questions,
+      int size,
+      TagCombinationCounter.Metric metric,
+      int limit) {
+    List<String[]> tagLists = new ArrayList<>(questions.size());
+    int[] scores = new int[questions.size()];
+    int[] views = new int[questions.size()];
+    for (int i = 0; i < questions.size(); i++) {
+      Map<String, Object> question = questions.get(i);
+      tagLists.add(((String) question.get("tag_group")).split(","));
+      scores[i] = intValue(question.get("score"));
+      views[i] = intValue(question.get("view_count"));
+    }
+    return TagCombinationCounter.count(tagLists, scores, views, size, metric, limit);
+  }
+
+  private static int intValue(Object value) {
+    return value == null ? 0 : ((Number) value).intValue();
   }
 }
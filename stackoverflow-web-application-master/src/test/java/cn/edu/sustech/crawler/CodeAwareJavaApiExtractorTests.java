@@ -0,0 +1,67 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// 规范化 API 名、代码中的字面量，以及 import / import static 的解析与遮蔽
+class CodeAwareJavaApiExtractorTests {
+
+	private final CodeAwareJavaApiExtractor extractor = new CodeAwareJavaApiExtractor();
+
+	@Test
+	void normalizesQualifiedNames() {
+		assertEquals("java.util.Map.Entry", CodeAwareJavaApiExtractor.normalize("java.util.Map$Entry"));
+		assertEquals("java.util.Map.get", CodeAwareJavaApiExtractor.normalize("java.util.Map#get"));
+		assertEquals("java.util.Map.Entry.getKey", CodeAwareJavaApiExtractor.normalize("java.util.Map.Entry.getKey"));
+		// 第一个成员之后的部分丢弃
+		assertEquals("java.lang.String.format", CodeAwareJavaApiExtractor.normalize("java.lang.String.format.length"));
+		assertEquals("java.util", CodeAwareJavaApiExtractor.normalize("java.util.*"));
+		assertEquals("java.util.List", CodeAwareJavaApiExtractor.normalize("java.util.List."));
+		assertNull(CodeAwareJavaApiExtractor.normalize("java."));
+		assertNull(CodeAwareJavaApiExtractor.normalize("java.1st"));
+	}
+
+	@Test
+	void stripsGenericsArraysAndCalls() {
+		assertEquals(Map.of("java.util.List", 1, "java.util.ArrayList", 1), extractor.getAllJavaAPI(
+				"<pre><code>java.util.List&lt;String&gt; x = new java.util.ArrayList&lt;&gt;();</code></pre>"));
+		assertEquals(Map.of("java.lang.String", 2, "java.util.Arrays.sort", 1), extractor.getAllJavaAPI(
+				"<p>java.lang.String[] and java.lang.String, then java.util.Arrays.sort(a).</p>"));
+	}
+
+	@Test
+	void skipsLiteralsInCodeOnly() {
+		assertEquals(Map.of("java.util.Set", 1), extractor.getAllJavaAPI(
+				"<code>String s = \"java.util.Hidden \\\" java.util.Quoted\"; char c = '\"'; java.util.Set</code>"));
+		// 正文里的引号不是字面量
+		assertEquals(Map.of("java.util.List", 1), extractor.getAllJavaAPI("<p>\"java.util.List\"</p>"));
+	}
+
+	@Test
+	void resolvesImportedSimpleNames() {
+		assertEquals(Map.of("java.util.List", 3), extractor.getAllJavaAPI(
+				"<pre><code>import java.util.List;\nList&lt;String&gt; a = foo();\nList b;</code></pre>"));
+		// 导入只作用于代码，正文里的简单名不计数
+		assertEquals(Map.of("java.io.File", 1), extractor.getAllJavaAPI(
+				"<pre><code>import java.io.File;</code></pre><p>File is a class</p>"));
+		// 按需导入记为包名，其中的简单名无从解析
+		assertEquals(Map.of("java.util", 1), extractor.getAllJavaAPI(
+				"<pre><code>import java.util.*;\nList x;</code></pre>"));
+	}
+
+	@Test
+	void resolvesStaticImports() {
+		assertEquals(Map.of("java.lang.Math.max", 2), extractor.getAllJavaAPI(
+				"<pre><code>import static java.lang.Math.max;\nint x = max(1, 2);</code></pre>"));
+	}
+
+	@Test
+	void nonJdkImportShadowsEarlierImport() {
+		assertEquals(Map.of("java.awt.List", 1), extractor.getAllJavaAPI(
+				"<pre><code>import java.awt.List;\nimport com.example.List;\nList x;</code></pre>"));
+	}
+}
@@ -0,0 +1,73 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 进度经过多次压缩后重新加载，状态、ID、窗口断点与完成标记都应保持不变
+class CollectionProgressTests {
+
+	@TempDir
+	File directory;
+
+	@Test
+	void reloadAfterCompactionsRestoresState() {
+		// 阈值很小，记录过程中会反复压缩
+		CollectionProgress progress = CollectionProgress.loadProgress(directory, 3);
+		progress.setState(CollectionState.COLLECTING_QUESTIONS);
+		ShardPlanner.Window first = new ShardPlanner.Window("java", 0, 100, 250);
+		ShardPlanner.Window second = new ShardPlanner.Window("java", 100, 200, 10);
+		progress.recordWindow(first);
+		progress.recordWindow(second);
+		progress.recordWindowPage(first, 2, false);
+		progress.recordWindowPage(second, 1, true);
+		for (int questionId = 1; questionId <= 5; questionId++) {
+			progress.recordQuestionProgress(questionId);
+		}
+		progress.recordAnswerProgress(1, 11);
+		progress.recordAnswerProgress(1, 12);
+		progress.recordAnswerProgress(2, 21);
+		progress.markAnswersCollected(List.of(1, 2, 3));
+		progress.recordCommentProgress(1, true, 101);
+		progress.recordCommentProgress(11, false, 111);
+		progress.markCommentsCollected(true, List.of(1, 2));
+		progress.markCommentsCollected(false, List.of(11));
+		progress.saveProgress();
+
+		CollectionProgress reloaded = CollectionProgress.loadProgress(directory, 3);
+		assertEquals(CollectionState.COLLECTING_QUESTIONS, reloaded.getState());
+		assertEquals(List.of(1, 2, 3, 4, 5), sorted(reloaded.listQuestionIds()));
+		assertEquals(List.of(11, 12, 21), sorted(reloaded.listAnswerIds()));
+		assertEquals(List.of(101, 111), sorted(reloaded.listCommentIds()));
+		assertEquals(List.of(4, 5), sorted(reloaded.listPendingAnswerQuestionIds()));
+		assertEquals(List.of(3, 4, 5), sorted(reloaded.listPendingCommentQuestionIds()));
+		assertEquals(List.of(12, 21), sorted(reloaded.listPendingCommentAnswerIds()));
+		assertEquals(List.of(
+				new CollectionProgress.WindowStatus(first, 2, false),
+				new CollectionProgress.WindowStatus(second, 1, true)), reloaded.listWindows());
+	}
+
+	@Test
+	void resetDiscardsPersistedProgress() {
+		CollectionProgress progress = CollectionProgress.loadProgress(directory, 1000);
+		progress.setState(CollectionState.COLLECTING_ANSWERS);
+		progress.recordQuestionProgress(1);
+		progress.recordWindow(new ShardPlanner.Window("java", 0, 100, 1));
+		progress.reset();
+		progress.saveProgress();
+
+		CollectionProgress reloaded = CollectionProgress.loadProgress(directory, 1000);
+		assertEquals(CollectionState.NOT_STARTED, reloaded.getState());
+		assertTrue(reloaded.listQuestionIds().isEmpty());
+		assertTrue(reloaded.listWindows().isEmpty());
+	}
+
+	private static List<Integer> sorted(List<Integer> ids) {
+		return ids.stream().sorted().toList();
+	}
+}
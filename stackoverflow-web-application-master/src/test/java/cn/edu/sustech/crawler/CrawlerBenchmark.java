@@ -0,0 +1,122 @@
+package cn.edu.sustech.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 采集吞吐量基准：在本地启动 LocalStackExchangeApi，让 DataCollector 与 DatabaseService 端到端地
+ * 采集合成数据并写入本地 PostgreSQL，最后输出每秒条目数、堆内存峰值以及 CrawlerMetrics 的分阶段耗时。
+ * 基准使用单独的数据库；每次运行前应清空其中的表，否则已存在的行会走更新路径，结果与首次采集不可比。
+ * 它需要数据库，不是单元测试，从 IDE 或 test classpath 上手动运行；数据库密码用 --db-password 或 PGPASSWORD 传入。
+ */
+public class CrawlerBenchmark {
+	private static final Logger logger = LoggerFactory.getLogger(CrawlerBenchmark.class);
+
+	private static final int PAGE_SIZE = 100;
+	private static final int SERVER_THREADS = 16;
+
+	private static final String USAGE = "Usage: CrawlerBenchmark [--questions n] [--latency ms] [--error-rate p] "
+			+ "[--backoff-every n] [--db-host host] [--db-port port] [--db-user user] [--db-password password] "
+			+ "[--database name]";
+
+	// 用法见 USAGE；数据库默认是 localhost:5432 上的 stackoverflow_bench
+	public static void main(String[] args) throws IOException, SQLException {
+		int questions = 20_000;
+		int latencyMillis = 0;
+		double errorRate = 0;
+		int backoffEvery = 0;
+		String dbHost = "localhost";
+		int dbPort = 5432;
+		String dbUser = "postgres";
+		String dbPassword = System.getenv("PGPASSWORD");
+		String database = "stackoverflow_bench";
+		if (args.length % 2 != 0) {
+			throw new IllegalArgumentException(USAGE);
+		}
+		for (int i = 0; i < args.length; i += 2) {
+			switch (args[i]) {
+				case "--questions" -> questions = Integer.parseInt(args[i + 1]);
+				case "--latency" -> latencyMillis = Integer.parseInt(args[i + 1]);
+				case "--error-rate" -> errorRate = Double.parseDouble(args[i + 1]);
+				case "--backoff-every" -> backoffEvery = Integer.parseInt(args[i + 1]);
+				case "--db-host" -> dbHost = args[i + 1];
+				case "--db-port" -> dbPort = Integer.parseInt(args[i + 1]);
+				case "--db-user" -> dbUser = args[i + 1];
+				case "--db-password" -> dbPassword = args[i + 1];
+				case "--database" -> database = args[i + 1];
+				default -> throw new IllegalArgumentException(USAGE);
+			}
+		}
+		if (dbPassword == null) {
+			throw new IllegalArgumentException("Database password missing: pass --db-password or set PGPASSWORD");
+		}
+		LocalStackExchangeApi.Settings defaults = LocalStackExchangeApi.Settings.of(questions);
+		// 合成数据要落在采集的时间范围内
+		LocalStackExchangeApi.Settings settings = new LocalStackExchangeApi.Settings(questions,
+				Math.max(defaults.fromDate(), ApiConfig.CRAWL_FROM_DATE), defaults.toDate(), latencyMillis,
+				errorRate, backoffEvery, defaults.quotaMax());
+
+		Path progressDir = Files.createTempDirectory("crawler-benchmark");
+		try (LocalStackExchangeApi api = new LocalStackExchangeApi(settings, SERVER_THREADS);
+			 CrawlerMetrics.Reporter metricsReporter = CrawlerMetrics.shared().startReporter(null,
+					 ApiConfig.METRICS_REPORT_INTERVAL_SECONDS);
+			 DatabaseService databaseService = new DatabaseService(
+					 dbHost, dbPort, dbUser, dbPassword, database)) {
+			databaseService.createTables();
+
+			// 限流器不设上限，测量的是采集与写库本身，backoff 与限流响应仍然生效
+			ApiClient apiClient = new ApiClient(new ApiRateLimiter(1_000_000, 1_000_000, 0), null, api.getBaseUrl());
+			DataCollector collector = new DataCollector(databaseService, new StackOverflowService(apiClient, PAGE_SIZE),
+					CollectionProgress.loadProgress(progressDir.toFile()), PAGE_SIZE, 1);
+
+			resetPeakHeap();
+			long started = System.nanoTime();
+			databaseService.executeWithoutForeignKeyCheck(collector::collectData);
+			double seconds = (System.nanoTime() - started) / 1e9;
+
+			logger.info("Benchmark finished: {} questions in {}s, {} requests ({} injected errors), "
+							+ "{} items/s, peak heap {} MB",
+					questions, String.format("%.1f", seconds), api.getRequestCount(), api.getInjectedErrorCount(),
+					String.format("%.1f", CrawlerMetrics.shared().fetchedItems() / seconds), peakHeap() >> 20);
+		} finally {
+			deleteRecursively(progressDir);
+		}
+	}
+
+	private static void resetPeakHeap() {
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	// 各堆内存池峰值之和，是实际峰值的上界
+	private static long peakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	private static void deleteRecursively(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 手写扫描器与 CoreNLP 分词结果的一致性检查
+class FastJavaApiExtractorTests {
+
+	private static StanfordCoreNLPService coreNLP;
+	private final FastJavaApiExtractor fast = new FastJavaApiExtractor();
+
+	@BeforeAll
+	static void setUp() {
+		coreNLP = new StanfordCoreNLPService();
+	}
+
+	@Test
+	void matchesCoreNLPOnTypicalPosts() {
+		List<String> samples = List.of(
+				"<p>Use java.util.List and java.util.Map.</p>",
+				"<p>Is java.util.List thread-safe? What about java.util.concurrent.ConcurrentHashMap?</p>",
+				"<pre><code>java.util.List&lt;String&gt; x = new java.util.ArrayList&lt;&gt;();\n</code></pre>",
+				"<pre><code>import java.io.File;\nimport java.util.*;\n\nFile f = new File(\"a\");\n</code></pre>",
+				"Exception in thread \"main\" java.lang.NullPointerException\n\tat Foo.bar(Foo.java:10)",
+				"Caused by: java.lang.IllegalStateException: java.io.IOException: closed",
+				"(java.lang.String) and [java.lang.Integer], {java.lang.Long}",
+				"<a href=\"https://docs.oracle.com/javase/8/docs/api/java/util/Map.html\">java.util.Map</a>",
+				"<a href='x' title=\"java.util.Set\">link</a> java.util.Set",
+				"<!-- java.util.Hidden --> java.util.Visible",
+				"java.util.List-based java.time.LocalDate/Time java.util.Optional<T>",
+				"a.java.util.List b-java.util.Set c/java.util.Queue c\\java.util.Map c:java.util.Deque",
+				"x..java.util.X x.-java.util.Y (-java.util.Z) --java.util.W",
+				"x_java.util.A _java.util.B x__java.util.D",
+				"a.b_java.util.C",
+				"#java.util.Tag ##java.util.List java.io.File#delete",
+				"+1java.io -1java.nio 1java.net",
+				"java.io!the java.io!1 java.util.List!x-y java.util.List-x!y",
+				"java.util.Listé-x java.io-é java.io-xé",
+				"&quot;java.util.List&quot; &amp;java.util.Set&#39; &nbsp;java.util.Map",
+				"java. java.1 java.util. javax.swing.JFrame Java.util.List");
+		for (String sample : samples) {
+			assertEquals(coreNLP.getAllJavaAPI(sample), fast.getAllJavaAPI(sample), sample);
+		}
+	}
+
+	@Test
+	void matchesCoreNLPOnMixedFragments() {
+		String[] fragments = {"java.util.List", "java.lang.String.format", "java.io", "javax.swing", "java", " ",
+				"\n", ". ", ", ", "(", ")", "[]", "{", "}", ";", ":", "=", "*", "-", "_", "$", "'", "\"", "x", "the ",
+				"<p>", "</p>", "<code>", "</code>", "<pre><code>", "</code></pre>", "<br/>", "<strong>", "</strong>",
+				"<a href=\"http://x.com/java.util.X\">", "</a>", "&lt;", "&gt;", "&amp;", "&quot;", "&#39;", "<T>",
+				"<String>", " < ", "'s "};
+		Random random = new Random(42);
+		for (int n = 0; n < 2000; n++) {
+			StringBuilder sample = new StringBuilder();
+			int count = 3 + random.nextInt(20);
+			for (int i = 0; i < count; i++) {
+				sample.append(fragments[random.nextInt(fragments.length)]);
+			}
+			String text = sample.toString();
+			assertEquals(coreNLP.getAllJavaAPI(text), fast.getAllJavaAPI(text), text);
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 线性探测集合：同槽冲突、探测链跨过表尾、删除后的前移、键 0 与扩容
+class IntHashSetTests {
+
+	@Test
+	void removeKeepsCollidingKeysReachable() {
+		IntHashSet set = new IntHashSet(16);
+		int mask = IntHashing.tableSize(16, 0.6f) - 1;
+		// 三个键落在最后一个槽，探测链绕回表头，再加一个本来就在表头的键
+		int[] tail = keysInSlot(mask, mask, 3);
+		int[] head = keysInSlot(0, mask, 1);
+		for (int key : tail) {
+			assertTrue(set.add(key));
+		}
+		assertTrue(set.add(head[0]));
+		assertFalse(set.add(tail[1]));
+
+		assertTrue(set.remove(tail[0]));
+		assertFalse(set.contains(tail[0]));
+		assertTrue(set.contains(tail[1]));
+		assertTrue(set.contains(tail[2]));
+		assertTrue(set.contains(head[0]));
+
+		assertTrue(set.remove(tail[1]));
+		assertTrue(set.contains(tail[2]));
+		assertTrue(set.contains(head[0]));
+		assertFalse(set.remove(tail[1]));
+		assertEquals(2, set.size());
+	}
+
+	@Test
+	void zeroIsStoredOutsideTable() {
+		IntHashSet set = new IntHashSet();
+		assertFalse(set.contains(0));
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.add(7));
+		assertEquals(2, set.size());
+		assertEquals(2, set.toArray().length);
+		assertTrue(set.remove(0));
+		assertFalse(set.contains(0));
+		assertFalse(set.remove(0));
+		assertTrue(set.contains(7));
+		assertEquals(1, set.size());
+	}
+
+	@Test
+	void matchesHashSetAcrossRehash() {
+		Random random = new Random(5);
+		IntHashSet set = new IntHashSet(4);
+		Set<Integer> expected = new HashSet<>();
+		for (int i = 0; i < 200_000; i++) {
+			// 取值范围小，插入与删除经常命中已有的键
+			int value = random.nextInt(50_000) - 1000;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(value), set.remove(value));
+			} else {
+				assertEquals(expected.add(value), set.add(value));
+			}
+		}
+		assertEquals(expected.size(), set.size());
+		for (int value = -1000; value < 49_000; value++) {
+			assertEquals(expected.contains(value), set.contains(value));
+		}
+		Set<Integer> iterated = new HashSet<>();
+		set.forEach(iterated::add);
+		assertEquals(expected, iterated);
+	}
+
+	// 前 count 个散列到 slot 的正整数键
+	static int[] keysInSlot(int slot, int mask, int count) {
+		int[] keys = new int[count];
+		int found = 0;
+		for (int key = 1; found < count; key++) {
+			if ((IntHashing.mix(key) & mask) == slot) {
+				keys[found++] = key;
+			}
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,77 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// int -> int 映射：删除时值随键一起前移，键 0 单独存放，扩容后映射不变
+class IntIntHashMapTests {
+
+	@Test
+	void removeMovesValuesWithKeys() {
+		IntIntHashMap map = new IntIntHashMap(16, -1);
+		int mask = IntHashing.tableSize(16, 0.6f) - 1;
+		int[] tail = IntHashSetTests.keysInSlot(mask, mask, 3);
+		int[] head = IntHashSetTests.keysInSlot(0, mask, 1);
+		for (int i = 0; i < tail.length; i++) {
+			assertEquals(-1, map.put(tail[i], 100 + i));
+		}
+		map.put(head[0], 200);
+
+		assertEquals(100, map.remove(tail[0]));
+		assertEquals(-1, map.get(tail[0]));
+		assertEquals(101, map.get(tail[1]));
+		assertEquals(102, map.get(tail[2]));
+		assertEquals(200, map.get(head[0]));
+		assertEquals(101, map.put(tail[1], 111));
+		assertEquals(111, map.get(tail[1]));
+		assertEquals(3, map.size());
+	}
+
+	@Test
+	void zeroKeyUsesMissingValueWhenAbsent() {
+		IntIntHashMap map = new IntIntHashMap(-1);
+		assertEquals(-1, map.get(0));
+		assertFalse(map.containsKey(0));
+		assertEquals(-1, map.put(0, 5));
+		assertEquals(8, map.addTo(0, 3));
+		assertTrue(map.containsKey(0));
+		assertEquals(1, map.size());
+		assertEquals(8, map.remove(0));
+		assertEquals(-1, map.remove(0));
+		assertEquals(2, map.addTo(0, 2));
+		assertEquals(2, map.remove(0));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	void matchesHashMapAcrossRehash() {
+		Random random = new Random(11);
+		IntIntHashMap map = new IntIntHashMap(4, Integer.MIN_VALUE);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 200_000; i++) {
+			int key = random.nextInt(50_000) - 1000;
+			switch (random.nextInt(4)) {
+				case 0 -> {
+					Integer old = expected.remove(key);
+					assertEquals(old == null ? Integer.MIN_VALUE : old, map.remove(key));
+				}
+				case 1 -> assertEquals((int) expected.merge(key, 3, Integer::sum), map.addTo(key, 3));
+				default -> {
+					Integer old = expected.put(key, i);
+					assertEquals(old == null ? Integer.MIN_VALUE : old, map.put(key, i));
+				}
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		Map<Integer, Integer> iterated = new HashMap<>();
+		map.forEach(iterated::put);
+		assertEquals(expected, iterated);
+	}
+}
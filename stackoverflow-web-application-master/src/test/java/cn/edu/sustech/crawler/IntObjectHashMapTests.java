@@ -0,0 +1,66 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// int -> 对象映射：同槽冲突跨过表尾、键 0、扩容后映射不变
+class IntObjectHashMapTests {
+
+	@Test
+	void collidingKeysWrapAround() {
+		IntObjectHashMap<String> map = new IntObjectHashMap<>(16);
+		int mask = IntHashing.tableSize(16, 0.6f) - 1;
+		int[] tail = IntHashSetTests.keysInSlot(mask, mask, 4);
+		for (int key : tail) {
+			assertNull(map.put(key, "v" + key));
+		}
+		for (int key : tail) {
+			assertTrue(map.containsKey(key));
+			assertEquals("v" + key, map.get(key));
+		}
+		assertEquals("v" + tail[2], map.put(tail[2], "x"));
+		assertEquals("x", map.get(tail[2]));
+		assertEquals(4, map.size());
+	}
+
+	@Test
+	void zeroKeyAndComputeIfAbsent() {
+		IntObjectHashMap<StringBuilder> map = new IntObjectHashMap<>();
+		assertNull(map.get(0));
+		assertFalse(map.containsKey(0));
+		StringBuilder zero = map.computeIfAbsent(0, key -> new StringBuilder());
+		assertSame(zero, map.computeIfAbsent(0, key -> new StringBuilder()));
+		assertTrue(map.containsKey(0));
+		assertEquals(1, map.size());
+		map.clear();
+		assertNull(map.get(0));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	void matchesHashMapAcrossRehash() {
+		Random random = new Random(13);
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<>(4);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100_000; i++) {
+			int key = random.nextInt(60_000) - 1000;
+			assertEquals(expected.put(key, i), map.put(key, i));
+		}
+		assertEquals(expected.size(), map.size());
+		for (int key = -1000; key < 59_000; key++) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+		Map<Integer, Integer> iterated = new HashMap<>();
+		map.forEach(iterated::put);
+		assertEquals(expected, iterated);
+	}
+}
@@ -0,0 +1,417 @@
+package cn.edu.sustech.crawler;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地的 Stack Exchange API 替身，用于在不消耗配额的情况下测量采集吞吐量。
+ * 数据按 ID 确定性地生成：问题 1..questions 的 creation_date 在 [fromDate, toDate) 内均匀分布，
+ * 每个问题的答案数与每个帖子的评论数由 ID 决定，同一请求重复发出得到相同的结果。
+ * 支持 questions、questions/no-answers、questions/{ids}/answers、questions/{ids}/comments 与 answers/{ids}/comments，
+ * 包括分页与 has_more、filter=total、fromdate/todate/min 过滤，以及按配置注入的延迟、backoff 和错误响应。
+ */
+public class LocalStackExchangeApi implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(LocalStackExchangeApi.class);
+	private static final int MAX_ANSWERS = 4;
+	private static final int MAX_COMMENTS = 3;
+	private static final String[] EXTRA_TAGS = {"spring", "collections", "multithreading", "jdbc", "generics"};
+	private static final String[] SNIPPETS = {
+			"<pre><code>List&lt;String&gt; names = new ArrayList&lt;&gt;();\nnames.add(\"a\");\n"
+					+ "Collections.sort(names);</code></pre>",
+			"<pre><code>Map&lt;String, Integer&gt; counts = new HashMap&lt;&gt;();\n"
+					+ "counts.merge(key, 1, Integer::sum);</code></pre>",
+			"<pre><code>ExecutorService pool = Executors.newFixedThreadPool(4);\n"
+					+ "pool.submit(task);\npool.shutdown();</code></pre>",
+			"<pre><code>String text = String.format(\"%d items\", count);\n"
+					+ "System.out.println(text.trim());</code></pre>",
+			"<pre><code>Connection conn = DriverManager.getConnection(url);\n"
+					+ "PreparedStatement stmt = conn.prepareStatement(sql);</code></pre>"
+	};
+
+	/**
+	 * latencyMillis 为每个请求的基础延迟（另加至多一倍的随机抖动）；errorRate 为返回错误响应的概率，
+	 * 其中一半是 HTTP 500，一半是 throttle_violation；backoffEvery 大于 0 时每隔这么多个请求附带一次 backoff。
+	 */
+	public record Settings(int questions, long fromDate, long toDate, int latencyMillis, double errorRate,
+						   int backoffEvery, int quotaMax) {
+		public static Settings of(int questions) {
+			long now = System.currentTimeMillis() / 1000;
+			return new Settings(questions, now - 365L * 24 * 3600, now, 0, 0, 0, 10_000_000);
+		}
+	}
+
+	private final Settings settings;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final AtomicInteger quotaRemaining;
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger injectedErrors = new AtomicInteger();
+
+	public LocalStackExchangeApi(Settings settings, int threads) throws IOException {
+		this.settings = settings;
+		this.quotaRemaining = new AtomicInteger(settings.quotaMax());
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+		logger.info("Local Stack Exchange API serving {} questions at {}", settings.questions(), getBaseUrl());
+	}
+
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public int getRequestCount() {
+		return requests.get();
+	}
+
+	public int getInjectedErrorCount() {
+		return injectedErrors.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			int request = requests.incrementAndGet();
+			simulateLatency();
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			if (random.nextDouble() < settings.errorRate()) {
+				injectedErrors.incrementAndGet();
+				if (random.nextBoolean()) {
+					send(exchange, 500, error(500, "internal_error", "injected failure"));
+				} else {
+					send(exchange, 400, error(502, "throttle_violation",
+							"too many requests from this IP, more requests available in 1 seconds"));
+				}
+				return;
+			}
+
+			String path = exchange.getRequestURI().getPath().replaceFirst("^/+", "");
+			Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+			JSONObject response = route(path.split("/"), params);
+			if (response == null) {
+				send(exchange, 404, error(404, "no_method", "no method found with this name: " + path));
+				return;
+			}
+			if (!response.containsKey("total")) {
+				response.put("quota_max", settings.quotaMax());
+				response.put("quota_remaining", Math.max(0, quotaRemaining.decrementAndGet()));
+				if (settings.backoffEvery() > 0 && request % settings.backoffEvery() == 0) {
+					response.put("backoff", 1);
+				}
+			}
+			send(exchange, 200, response);
+		} catch (RuntimeException e) {
+			logger.error("Local API failed to handle {}", exchange.getRequestURI(), e);
+		}
+	}
+
+	private JSONObject route(String[] path, Map<String, String> params) {
+		if (path.length == 1 && path[0].equals("questions")) {
+			return questions(params);
+		}
+		if (path.length == 2 && path[0].equals("questions") && path[1].equals("no-answers")) {
+			return total(countUnanswered());
+		}
+		if (path.length == 3 && path[0].equals("questions") && path[2].equals("answers")) {
+			List<JSONObject> answers = new ArrayList<>();
+			for (int questionId : parseIds(path[1])) {
+				for (int i = 0; i < answerCount(questionId); i++) {
+					answers.add(answer(questionId, i));
+				}
+			}
+			return page(answers, params);
+		}
+		if (path.length == 3 && path[2].equals("comments")
+				&& (path[0].equals("questions") || path[0].equals("answers"))) {
+			List<JSONObject> comments = new ArrayList<>();
+			for (int postId : parseIds(path[1])) {
+				if (postId > 0 && postId <= lastAnswerId()) {
+					for (int i = 0; i < commentCount(postId); i++) {
+						comments.add(comment(postId, i));
+					}
+				}
+			}
+			return page(comments, params);
+		}
+		return null;
+	}
+
+	// fromdate / todate 都包含端点，与真实 API 一致
+	private JSONObject questions(Map<String, String> params) {
+		long from = Long.parseLong(params.getOrDefault("fromdate", String.valueOf(Long.MIN_VALUE)));
+		long to = Long.parseLong(params.getOrDefault("todate", String.valueOf(Long.MAX_VALUE)));
+		int first = firstCreatedAtOrAfter(from);
+		int end = to == Long.MAX_VALUE ? settings.questions() + 1 : firstCreatedAtOrAfter(to + 1);
+		if ("total".equals(params.get("filter")) && !params.containsKey("min")) {
+			return total(Math.max(0, end - first));
+		}
+
+		boolean descending = !"asc".equals(params.get("order"));
+		List<JSONObject> questions = new ArrayList<>();
+		if ("activity".equals(params.getOrDefault("sort", "activity"))) {
+			long min = Long.parseLong(params.getOrDefault("min", String.valueOf(Long.MIN_VALUE)));
+			List<Integer> ids = new ArrayList<>();
+			for (int id = first; id < end; id++) {
+				if (lastActivityDate(id) >= min) {
+					ids.add(id);
+				}
+			}
+			Comparator<Integer> byActivity = Comparator.comparingLong(this::lastActivityDate);
+			ids.sort(descending ? byActivity.reversed() : byActivity);
+			if ("total".equals(params.get("filter"))) {
+				return total(ids.size());
+			}
+			int[] range = pageRange(ids.size(), params);
+			for (int i = range[0]; i < range[1]; i++) {
+				questions.add(question(ids.get(i)));
+			}
+			return items(questions, range[1] < ids.size());
+		}
+
+		// 按创建时间排序时 ID 与时间同序，直接按下标取一页，不必生成整个窗口
+		int count = Math.max(0, end - first);
+		int[] range = pageRange(count, params);
+		for (int i = range[0]; i < range[1]; i++) {
+			questions.add(question(descending ? end - 1 - i : first + i));
+		}
+		return items(questions, range[1] < count);
+	}
+
+	private JSONObject question(int id) {
+		JSONObject question = new JSONObject();
+		question.put("question_id", id);
+		question.put("title", "How do I use Java API number " + id + "?");
+		question.put("link", "https://stackoverflow.com/questions/" + id);
+		JSONArray tags = new JSONArray();
+		tags.add("java");
+		tags.add(EXTRA_TAGS[mix(id) % EXTRA_TAGS.length]);
+		question.put("tags", tags);
+		question.put("score", mix(id) % 50 - 5);
+		question.put("view_count", mix(id) % 100_000);
+		question.put("answer_count", answerCount(id));
+		question.put("is_answered", answerCount(id) > 0);
+		question.put("content_license", "CC BY-SA 4.0");
+		question.put("creation_date", creationDate(id));
+		question.put("last_activity_date", lastActivityDate(id));
+		question.put("last_edit_date", creationDate(id) + 60);
+		question.put("owner", owner(id));
+		question.put("body", "<p>I am trying to call <code>String.valueOf()</code> but it fails.</p>"
+				+ SNIPPETS[mix(id) % SNIPPETS.length]);
+		return question;
+	}
+
+	private JSONObject answer(int questionId, int index) {
+		int id = answerId(questionId, index);
+		JSONObject answer = new JSONObject();
+		answer.put("answer_id", id);
+		answer.put("question_id", questionId);
+		answer.put("is_accepted", index == 0);
+		answer.put("score", mix(id) % 30);
+		answer.put("content_license", "CC BY-SA 4.0");
+		answer.put("creation_date", creationDate(questionId) + 600L * (index + 1));
+		answer.put("last_activity_date", lastActivityDate(questionId));
+		answer.put("last_edit_date", creationDate(questionId) + 600L * (index + 1) + 60);
+		answer.put("owner", owner(id));
+		answer.put("body", "<p>Use <code>Objects.requireNonNull()</code> first, then:</p>"
+				+ SNIPPETS[mix(id) % SNIPPETS.length]);
+		return answer;
+	}
+
+	private JSONObject comment(int postId, int index) {
+		int id = commentId(postId, index);
+		JSONObject comment = new JSONObject();
+		comment.put("comment_id", id);
+		comment.put("post_id", postId);
+		comment.put("edited", index == 1);
+		comment.put("score", mix(id) % 10);
+		comment.put("content_license", "CC BY-SA 4.0");
+		comment.put("creation_date", postCreationDate(postId) + 120L * (index + 1));
+		comment.put("owner", owner(id));
+		comment.put("body", "Have you tried <code>Optional.ofNullable(value)</code>?");
+		return comment;
+	}
+
+	// 所有者取自一个较小的用户池，让所有者去重与维度缓存有实际的命中
+	private JSONObject owner(int postId) {
+		int accountId = 1 + mix(postId) % Math.max(1, settings.questions() / 4);
+		JSONObject owner = new JSONObject();
+		owner.put("account_id", accountId);
+		owner.put("user_id", accountId + 1_000_000);
+		owner.put("user_type", "registered");
+		owner.put("display_name", "user" + accountId);
+		owner.put("reputation", mix(accountId) % 10_000);
+		owner.put("profile_image", "https://example.com/avatar/" + accountId);
+		owner.put("link", "https://stackoverflow.com/users/" + (accountId + 1_000_000));
+		return owner;
+	}
+
+	// ID 布局：问题 1..n，答案 n+1..5n，评论在 5n 之后，互不重叠
+	private int answerId(int questionId, int index) {
+		return settings.questions() + (questionId - 1) * MAX_ANSWERS + index + 1;
+	}
+
+	private int lastAnswerId() {
+		return settings.questions() * (MAX_ANSWERS + 1);
+	}
+
+	private int commentId(int postId, int index) {
+		return lastAnswerId() + (postId - 1) * MAX_COMMENTS + index + 1;
+	}
+
+	private int answerCount(int questionId) {
+		return questionId > 0 && questionId <= settings.questions() ? mix(questionId) % MAX_ANSWERS : 0;
+	}
+
+	private int commentCount(int postId) {
+		return mix(postId * 31) % MAX_COMMENTS;
+	}
+
+	private int countUnanswered() {
+		int count = 0;
+		for (int id = 1; id <= settings.questions(); id++) {
+			if (answerCount(id) == 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private long creationDate(int questionId) {
+		return settings.fromDate() + (questionId - 1L) * (settings.toDate() - settings.fromDate()) / settings.questions();
+	}
+
+	private long lastActivityDate(int questionId) {
+		return Math.min(settings.toDate(), creationDate(questionId) + mix(questionId) % (30L * 24 * 3600));
+	}
+
+	private long postCreationDate(int postId) {
+		if (postId <= settings.questions()) {
+			return creationDate(postId);
+		}
+		return creationDate((postId - settings.questions() - 1) / MAX_ANSWERS + 1);
+	}
+
+	// 第一个 creation_date 不早于 date 的问题 ID，不存在时为 questions + 1
+	private int firstCreatedAtOrAfter(long date) {
+		int low = 1;
+		int high = settings.questions() + 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (creationDate(mid) < date) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static int[] pageRange(int count, Map<String, String> params) {
+		int page = Integer.parseInt(params.getOrDefault("page", "1"));
+		int pageSize = Integer.parseInt(params.getOrDefault("pagesize", "30"));
+		long start = (long) (page - 1) * pageSize;
+		return new int[]{(int) Math.min(start, count), (int) Math.min(start + pageSize, count)};
+	}
+
+	private static JSONObject page(List<JSONObject> all, Map<String, String> params) {
+		int[] range = pageRange(all.size(), params);
+		return items(all.subList(range[0], range[1]), range[1] < all.size());
+	}
+
+	private static JSONObject items(List<JSONObject> items, boolean hasMore) {
+		JSONObject response = new JSONObject(true);
+		response.put("items", items);
+		response.put("has_more", hasMore);
+		return response;
+	}
+
+	private static JSONObject total(int total) {
+		JSONObject response = new JSONObject();
+		response.put("total", total);
+		return response;
+	}
+
+	private static JSONObject error(int id, String name, String message) {
+		JSONObject response = new JSONObject(true);
+		response.put("error_id", id);
+		response.put("error_name", name);
+		response.put("error_message", message);
+		return response;
+	}
+
+	private void simulateLatency() {
+		if (settings.latencyMillis() <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(settings.latencyMillis() + ThreadLocalRandom.current().nextInt(settings.latencyMillis() + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, JSONObject body) throws IOException {
+		byte[] bytes = body.toJSONString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> params = new HashMap<>();
+		if (query == null) {
+			return params;
+		}
+		for (String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0) {
+				params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return params;
+	}
+
+	private static List<Integer> parseIds(String ids) {
+		List<Integer> parsed = new ArrayList<>();
+		for (String id : URLDecoder.decode(ids, StandardCharsets.UTF_8).split(";")) {
+			if (!id.isEmpty()) {
+				parsed.add(Integer.parseInt(id));
+			}
+		}
+		return parsed;
+	}
+
+	private static int mix(int value) {
+		return IntHashing.mix(value) & Integer.MAX_VALUE;
+	}
+}
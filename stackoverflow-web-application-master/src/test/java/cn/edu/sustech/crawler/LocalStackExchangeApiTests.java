@@ -0,0 +1,75 @@
+package cn.edu.sustech.crawler;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 本地 API 替身的一致性检查：分页覆盖 total 报告的全部问题，答案数与问题的 answer_count 一致
+class LocalStackExchangeApiTests {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void windowPagesMatchTotal() throws Exception {
+		LocalStackExchangeApi.Settings settings = new LocalStackExchangeApi.Settings(1000, 0, 100_000, 0, 0, 0, 10_000);
+		try (LocalStackExchangeApi api = new LocalStackExchangeApi(settings, 2)) {
+			int total = get(api, "questions?filter=total&fromdate=20000&todate=49999").getInteger("total");
+			assertEquals(300, total);
+
+			Set<Integer> ids = new HashSet<>();
+			long lastCreated = 0;
+			for (int page = 1; ; page++) {
+				JSONObject response = get(api, "questions?page=" + page
+						+ "&pagesize=100&order=asc&sort=creation&fromdate=20000&todate=49999");
+				for (Object item : response.getJSONArray("items")) {
+					JSONObject question = (JSONObject) item;
+					assertTrue(question.getLong("creation_date") >= lastCreated);
+					lastCreated = question.getLong("creation_date");
+					ids.add(question.getInteger("question_id"));
+				}
+				if (!response.getBoolean("has_more")) {
+					break;
+				}
+			}
+			assertEquals(total, ids.size());
+		}
+	}
+
+	@Test
+	void answersMatchAnswerCount() throws Exception {
+		LocalStackExchangeApi.Settings settings = LocalStackExchangeApi.Settings.of(200);
+		try (LocalStackExchangeApi api = new LocalStackExchangeApi(settings, 2)) {
+			JSONArray questions = get(api, "questions?page=1&pagesize=20&order=asc&sort=creation")
+					.getJSONArray("items");
+			int expected = 0;
+			StringBuilder ids = new StringBuilder();
+			for (Object item : questions) {
+				JSONObject question = (JSONObject) item;
+				expected += question.getInteger("answer_count");
+				ids.append(ids.length() == 0 ? "" : ";").append(question.getInteger("question_id"));
+			}
+			JSONObject answers = get(api, "questions/" + ids + "/answers?page=1&pagesize=100");
+			assertEquals(expected, answers.getJSONArray("items").size());
+			assertFalse(answers.getBoolean("has_more"));
+			assertTrue(answers.getInteger("quota_remaining") < settings.quotaMax());
+		}
+	}
+
+	private JSONObject get(LocalStackExchangeApi api, String path) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(api.getBaseUrl() + "/" + path)).build();
+		return JSON.parseObject(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+	}
+}
@@ -0,0 +1,175 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 进度日志的编码往返、压缩后的快照与日志，以及崩溃留下的半条记录
+class ProgressLogTests {
+
+	@TempDir
+	File directory;
+
+	@Test
+	void recordsRoundTrip() throws IOException {
+		try (ProgressLog log = newLog(1000)) {
+			log.openForAppend();
+			writeSample(log.writer());
+			log.flush();
+		}
+		assertEquals(sampleRecords(), replay(newLog(1000)));
+	}
+
+	@Test
+	void truncatedTailIsDropped() throws IOException {
+		try (ProgressLog log = newLog(1000)) {
+			log.openForAppend();
+			writeSample(log.writer());
+			log.writer().answersDone(new int[]{1, 2, 3});
+			log.flush();
+		}
+		// 最后一条记录只写了一半
+		File logFile = new File(directory, "progress.log");
+		try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+			file.setLength(file.length() - 5);
+		}
+		assertEquals(sampleRecords(), replay(newLog(1000)));
+
+		// 启动时的压缩把状态写成快照并清空日志，之后追加的记录不会接在半条记录后面
+		try (ProgressLog log = newLog(1000)) {
+			log.openForAppend();
+			log.compact(this::writeSample);
+			log.writer().question(99);
+			log.flush();
+		}
+		List<String> expected = new ArrayList<>(sampleRecords());
+		expected.add("question 99");
+		assertEquals(expected, replay(newLog(1000)));
+	}
+
+	@Test
+	void compactionReplacesSnapshotAndEmptiesLog() throws IOException {
+		try (ProgressLog log = newLog(4)) {
+			log.openForAppend();
+			for (int i = 1; i <= 3; i++) {
+				log.writer().question(i);
+			}
+			assertFalse(log.needsCompaction());
+			log.writer().question(4);
+			assertTrue(log.needsCompaction());
+
+			log.compact(writer -> writer.state(CollectionState.COLLECTING_ANSWERS));
+			assertFalse(log.needsCompaction());
+			// 日志只剩文件头
+			assertEquals(4, new File(directory, "progress.log").length());
+			log.writer().question(5);
+			log.flush();
+		}
+		assertFalse(new File(directory, "progress.snapshot.tmp").exists());
+		assertEquals(List.of("state COLLECTING_ANSWERS", "question 5"), replay(newLog(4)));
+	}
+
+	@Test
+	void missingFilesReplayNothing() {
+		List<String> records = new ArrayList<>();
+		assertFalse(newLog(10).replay(recorder(records)));
+		assertTrue(records.isEmpty());
+	}
+
+	private ProgressLog newLog(int compactThreshold) {
+		return new ProgressLog(new File(directory, "progress.snapshot"), new File(directory, "progress.log"),
+				compactThreshold);
+	}
+
+	private void writeSample(ProgressLog.Writer writer) throws IOException {
+		writer.stats(10, 2, 1);
+		writer.state(CollectionState.COLLECTING_QUESTIONS);
+		writer.window("java", 100, 200, 42);
+		writer.windowPage("java", 100, 3, false);
+		writer.question(7);
+		writer.answer(7, 70);
+		writer.comment(70, false, 700);
+		writer.commentsDone(true, new int[]{7});
+	}
+
+	private static List<String> sampleRecords() {
+		return List.of("stats 10 2 1", "state COLLECTING_QUESTIONS", "window java 100 200 42",
+				"windowPage java 100 3 false", "question 7", "answer 7 70", "comment 70 false 700",
+				"commentsDone true [7]");
+	}
+
+	private static List<String> replay(ProgressLog log) {
+		List<String> records = new ArrayList<>();
+		assertTrue(log.replay(recorder(records)));
+		return records;
+	}
+
+	private static ProgressLog.Handler recorder(List<String> records) {
+		return new ProgressLog.Handler() {
+			@Override
+			public void onStats(int totalQuestions, int noAnswerQuestions, int totalPages) {
+				records.add("stats " + totalQuestions + " " + noAnswerQuestions + " " + totalPages);
+			}
+
+			@Override
+			public void onPage(int page) {
+				records.add("page " + page);
+			}
+
+			@Override
+			public void onState(CollectionState state) {
+				records.add("state " + state.name());
+			}
+
+			@Override
+			public void onQuestion(int questionId) {
+				records.add("question " + questionId);
+			}
+
+			@Override
+			public void onAnswer(int questionId, int answerId) {
+				records.add("answer " + questionId + " " + answerId);
+			}
+
+			@Override
+			public void onComment(int targetId, boolean isQuestion, int commentId) {
+				records.add("comment " + targetId + " " + isQuestion + " " + commentId);
+			}
+
+			@Override
+			public void onBatch(int batchIndex, int[] questionIds) {
+				records.add("batch " + batchIndex + " " + Arrays.toString(questionIds));
+			}
+
+			@Override
+			public void onWindow(String tag, long from, long to, int total) {
+				records.add("window " + tag + " " + from + " " + to + " " + total);
+			}
+
+			@Override
+			public void onWindowPage(String tag, long from, int page, boolean done) {
+				records.add("windowPage " + tag + " " + from + " " + page + " " + done);
+			}
+
+			@Override
+			public void onAnswersDone(int[] questionIds) {
+				records.add("answersDone " + Arrays.toString(questionIds));
+			}
+
+			@Override
+			public void onCommentsDone(boolean isQuestion, int[] postIds) {
+				records.add("commentsDone " + isQuestion + " " + Arrays.toString(postIds));
+			}
+		};
+	}
+}
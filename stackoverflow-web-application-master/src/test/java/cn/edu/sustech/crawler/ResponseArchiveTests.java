@@ -0,0 +1,108 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// 响应归档的读写，以及固定值在多次记录与回放之间的生命周期
+class ResponseArchiveTests {
+
+	@TempDir
+	File directory;
+
+	@Test
+	void responsesRoundTrip() throws IOException {
+		try (ResponseArchive archive = ResponseArchive.openForRecording(directory, 1 << 20)) {
+			archive.append("questions?page=1", gzip("first"));
+			archive.append("questions?page=2", gzip("second"));
+		}
+		try (ResponseArchive archive = ResponseArchive.openForReplay(directory)) {
+			assertEquals(2, archive.size());
+			assertEquals("second", read(archive, "questions?page=2"));
+			assertNull(archive.open("questions?page=3"));
+		}
+	}
+
+	@Test
+	void resumedSessionKeepsPin() throws IOException {
+		try (ResponseArchive archive = ResponseArchive.openForRecording(directory, 1 << 20)) {
+			assertEquals(100, archive.pin("crawl_to", () -> 100));
+			assertEquals(100, archive.pin("crawl_to", () -> 150));
+		}
+		// 续传不 unpin，沿用上一次记录的截止时间
+		try (ResponseArchive archive = ResponseArchive.openForRecording(directory, 1 << 20)) {
+			assertEquals(100, archive.pin("crawl_to", () -> 200));
+		}
+	}
+
+	@Test
+	void secondSessionGetsFreshCrawlTo() throws IOException {
+		try (ResponseArchive archive = ResponseArchive.openForRecording(directory, 1 << 20)) {
+			archive.pin("crawl_to", () -> 100);
+			archive.pin("other", () -> 7);
+		}
+		// 新的一次采集开始时丢弃上一次的截止时间
+		try (ResponseArchive archive = ResponseArchive.openForRecording(directory, 1 << 20)) {
+			archive.unpin("crawl_to");
+			assertEquals(200, archive.pin("crawl_to", () -> 200));
+		}
+		try (ResponseArchive archive = ResponseArchive.openForReplay(directory)) {
+			assertEquals(200, archive.pin("crawl_to", () -> 300));
+			assertEquals(7, archive.pin("other", () -> 300));
+		}
+	}
+
+	@Test
+	void incrementalRunsPinPerWatermark() throws IOException {
+		// 与 DataCollector.collectIncremental 相同：记录时先 unpin 再取当前时间，每次都是新值
+		try (ResponseArchive archive = ResponseArchive.openForRecording(directory, 1 << 20)) {
+			archive.unpin("incremental_to@100");
+			assertEquals(200, archive.pin("incremental_to@100", () -> 200));
+		}
+		try (ResponseArchive archive = ResponseArchive.openForRecording(directory, 1 << 20)) {
+			archive.unpin("incremental_to@200");
+			assertEquals(300, archive.pin("incremental_to@200", () -> 300));
+		}
+		try (ResponseArchive archive = ResponseArchive.openForReplay(directory)) {
+			archive.unpin("incremental_to@100");
+			assertEquals(200, archive.pin("incremental_to@100", () -> 999));
+			assertEquals(300, archive.pin("incremental_to@200", () -> 999));
+		}
+	}
+
+	@Test
+	void replayNeverChangesPins() throws IOException {
+		try (ResponseArchive archive = ResponseArchive.openForRecording(directory, 1 << 20)) {
+			archive.pin("crawl_to", () -> 100);
+		}
+		try (ResponseArchive archive = ResponseArchive.openForReplay(directory)) {
+			archive.unpin("crawl_to");
+			assertEquals(100, archive.pin("crawl_to", () -> 200));
+			assertThrows(ApiException.class, () -> archive.pin("incremental_to", () -> 200));
+		}
+	}
+
+	private static byte[] gzip(String text) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+		}
+		return buffer.toByteArray();
+	}
+
+	private static String read(ResponseArchive archive, String key) throws IOException {
+		try (InputStream in = archive.open(key)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package cn.edu.sustech.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 窗口规划的覆盖性检查：窗口首尾相接、不重叠，且每个窗口都不超过上限
+class ShardPlannerTests {
+
+	@Test
+	void windowsCoverRangeWithinLimit() {
+		// 问题的创建时间集中在后半段，模拟不均匀的分布
+		Random random = new Random(7);
+		long[] created = new long[50000];
+		for (int i = 0; i < created.length; i++) {
+			created[i] = 1000 + (long) (Math.sqrt(random.nextDouble()) * 1_000_000);
+		}
+		Arrays.sort(created);
+		ShardPlanner planner = new ShardPlanner((tag, from, to) -> countBetween(created, from, to), 2500);
+
+		List<ShardPlanner.Window> windows = Collections.synchronizedList(new ArrayList<>());
+		try (CrawlPipeline pipeline = new CrawlPipeline(4)) {
+			planner.plan(pipeline, "java", 0, 2_000_000, windows::add);
+			pipeline.await();
+		}
+
+		windows.sort(Comparator.comparingLong(ShardPlanner.Window::from));
+		long next = 0;
+		int total = 0;
+		for (ShardPlanner.Window window : windows) {
+			assertEquals(next, window.from());
+			assertTrue(window.total() <= 2500, window.toString());
+			assertEquals(countBetween(created, window.from(), window.to()), window.total());
+			next = window.to();
+			total += window.total();
+		}
+		assertEquals(2_000_000, next);
+		assertEquals(created.length, total);
+	}
+
+	@Test
+	void gapsSkipCoveredWindows() {
+		List<ShardPlanner.Window> covered = List.of(
+				new ShardPlanner.Window("java", 30, 40, 0),
+				new ShardPlanner.Window("java", 10, 20, 0),
+				new ShardPlanner.Window("java", 20, 25, 0));
+		List<long[]> gaps = ShardPlanner.gaps(0, 50, covered);
+		assertEquals(3, gaps.size());
+		assertArrayEquals(new long[]{0, 10}, gaps.get(0));
+		assertArrayEquals(new long[]{25, 30}, gaps.get(1));
+		assertArrayEquals(new long[]{40, 50}, gaps.get(2));
+		assertTrue(ShardPlanner.gaps(10, 25, covered).isEmpty());
+	}
+
+	private static int countBetween(long[] sorted, long from, long to) {
+		return lowerBound(sorted, to) - lowerBound(sorted, from);
+	}
+
+	private static int lowerBound(long[] sorted, long value) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] < value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
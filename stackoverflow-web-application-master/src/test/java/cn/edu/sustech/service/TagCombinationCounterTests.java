@@ -0,0 +1,92 @@
+package cn.edu.sustech.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 标签组合计数与逐个枚举子集的朴素做法对比，覆盖并行分块、top-K 截断与排序
+class TagCombinationCounterTests {
+
+	@Test
+	void matchesNaiveCounting() {
+		Random random = new Random(42);
+		List<String[]> tagLists = new ArrayList<>();
+		int questions = 10_000;
+		int[] scores = new int[questions];
+		int[] views = new int[questions];
+		for (int i = 0; i < questions; i++) {
+			String[] tags = new String[1 + random.nextInt(5)];
+			for (int j = 0; j < tags.length; j++) {
+				tags[j] = "tag" + random.nextInt(40);
+			}
+			tagLists.add(tags);
+			scores[i] = random.nextInt(21) - 10;
+			views[i] = random.nextInt(1000);
+		}
+
+		for (int size = 1; size <= 3; size++) {
+			Map<String, long[]> expected = naive(tagLists, scores, views, size);
+			List<TagCombinationCounter.Combination> all = TagCombinationCounter.count(
+					tagLists, scores, views, size, TagCombinationCounter.Metric.VIEWS, 0);
+			assertEquals(expected.size(), all.size());
+			for (TagCombinationCounter.Combination combination : all) {
+				long[] total = expected.get(combination.tags());
+				assertEquals(total[0], combination.count(), combination.tags());
+				assertEquals(total[1], combination.score(), combination.tags());
+				assertEquals(total[2], combination.views(), combination.tags());
+			}
+
+			List<TagCombinationCounter.Combination> top = TagCombinationCounter.count(
+					tagLists, scores, views, size, TagCombinationCounter.Metric.SCORE, 10);
+			assertEquals(Math.min(10, expected.size()), top.size());
+			long best = expected.values().stream().mapToLong(total -> total[1]).max().orElseThrow();
+			assertEquals(best, top.get(0).score());
+			for (int i = 1; i < top.size(); i++) {
+				assertTrue(top.get(i - 1).score() >= top.get(i).score());
+			}
+		}
+	}
+
+	@Test
+	void ignoresDuplicateTagsAndShortQuestions() {
+		List<String[]> tagLists = List.of(
+				new String[] {"b", "a", "a"},
+				new String[] {"c"},
+				new String[] {"a", "b", "c"});
+		List<TagCombinationCounter.Combination> result = TagCombinationCounter.count(
+				tagLists, null, null, 2, TagCombinationCounter.Metric.COUNT, 0);
+		assertEquals(3, result.size());
+		assertEquals("a,b", result.get(0).tags());
+		assertEquals(2, result.get(0).count());
+	}
+
+	private static Map<String, long[]> naive(List<String[]> tagLists, int[] scores, int[] views, int size) {
+		Map<String, long[]> result = new HashMap<>();
+		for (int i = 0; i < tagLists.size(); i++) {
+			List<String> tags = List.of(tagLists.get(i)).stream().distinct().sorted().toList();
+			for (int mask = 0; mask < (1 << tags.size()); mask++) {
+				if (Integer.bitCount(mask) != size) {
+					continue;
+				}
+				List<String> subList = new ArrayList<>();
+				for (int j = 0; j < tags.size(); j++) {
+					if ((mask & (1 << j)) != 0) {
+						subList.add(tags.get(j));
+					}
+				}
+				long[] total = result.computeIfAbsent(String.join(",", subList), key -> new long[3]);
+				total[0]++;
+				total[1] += scores[i];
+				total[2] += views[i];
+			}
+		}
+		return result;
+	}
+}